@@ -1,7 +1,9 @@
 package com.proj.ckitchens;
 
+import com.proj.ckitchens.config.KitchenProperties;
 import com.proj.ckitchens.model.Order;
 import com.proj.ckitchens.svc.*;
+import com.proj.ckitchens.svc.journal.JournalMode;
 import com.proj.ckitchens.utils.OrderParser;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -9,6 +11,7 @@ import org.springframework.context.ApplicationContext;
 
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @SpringBootApplication
 public class CkitchensApplication {
@@ -19,20 +22,23 @@ public class CkitchensApplication {
 
 		List<Order> orders = OrderParser.readFromFile("orders.json");
 
-		LinkedBlockingQueue<Order> orderQueue = new LinkedBlockingQueue<>();
+		KitchenProperties properties = KitchenProperties.load("application.properties");
+		KitchenProperties.IntakeProperties intake = properties.getIntake();
+		LinkedBlockingQueue<Order> orderQueue = new LinkedBlockingQueue<>(intake.getCapacity());
 		LinkedBlockingQueue<Order> deliveryQueue = new LinkedBlockingQueue<>();
 		OrderDispatchService dispatchService = new OrderDispatchService(orderQueue, deliveryQueue);
-		OrderMgmtService orderMgmtService = new OrderMgmtService(orderQueue);
-		ChefMgmtService chefMgmtService = new ChefMgmtService(3, dispatchService);
-		DeliveryService deliveryService = new DeliveryService(3, dispatchService);
-        CleanupService cleanupService = new CleanupService();
+		KitchenExecutor executor = KitchenExecutor.create(properties);
+		OrderMgmtService orderMgmtService = OrderMgmtService.create(orderQueue, intake);
+		KitchenRegistry kitchens = KitchenRegistry.create(properties, JournalMode.FULL);
+		ChefMgmtService chefMgmtService = new ChefMgmtService(dispatchService, kitchens, executor,
+				properties.getChefScheduling());
+		DeliveryService deliveryService = new DeliveryService(dispatchService, kitchens, executor, properties.getDispatch(),
+				properties.getCouriers(), properties.getOrdersPerTrip());
+        CleanupService cleanupService = new CleanupService(kitchens, executor);
+		KitchenLifecycle lifecycle = new KitchenLifecycle(orderMgmtService, dispatchService, chefMgmtService,
+				deliveryService, cleanupService, kitchens, executor);
 
-		Thread r = new Thread(() -> chefMgmtService.run());
-		r.start();
-		Thread t = new Thread(() -> deliveryService.run());
-		t.start();
-		Thread c = new Thread(() -> cleanupService.run());
-		c.start();
+		lifecycle.start();
 
 		double ordersPerSecond = 20;
 		int gap = (int) Math.round(1000/ordersPerSecond);
@@ -48,15 +54,8 @@ public class CkitchensApplication {
 				}
 		);
 
-		try {
-			Thread.sleep(60000);
-		} catch(Exception e) {}
-
-		cleanupService.signalShutdown();
-		chefMgmtService.signalShutdown();
-		deliveryService.signalShutdown();
-		orderMgmtService.shutdown();
-		dispatchService.signalShutDown();
+		ShutdownReport report = lifecycle.shutdown(properties.getDrainMillis(), TimeUnit.MILLISECONDS);
+		System.out.println("- Application stopped - " + report);
 
 //		Thread c = new Thread(() -> applicationContext.getBean(ChefMgmtService.class).run());
 //		Thread d = new Thread(() -> applicationContext.getBean(DeliveryService.class).run());
@@ -0,0 +1,14 @@
+package com.proj.ckitchens.common;
+
+/**
+ * how cooked orders are spread over chef workers
+ * <ul>
+ *     <li>SHARED: every order is a task of the shared pool; any worker places any temperature</li>
+ *     <li>AFFINE: every worker has a home temperature and takes its orders first, so it mostly locks the shelves of
+ *     that temperature; a worker with none of its own steals from the temperature with the most orders waiting</li>
+ * </ul>
+ */
+public enum ChefScheduling {
+    SHARED,
+    AFFINE
+}
@@ -0,0 +1,30 @@
+package com.proj.ckitchens.common;
+
+/**
+ * time source of a kitchen
+ * shelf life, expiry deadlines and scheduling delays read {@link #nanoTime()}; event timestamps read
+ * {@link #currentTimeMillis()}. {@link #SYSTEM} is the wall clock, {@link VirtualTimeScheduler} runs on virtual time.
+ */
+public interface Clock {
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * @return monotonic time in nanoseconds, only meaningful as a difference, like {@link System#nanoTime()}
+     */
+    long nanoTime();
+
+    /**
+     * @return milliseconds since the epoch, like {@link System#currentTimeMillis()}
+     */
+    long currentTimeMillis();
+}
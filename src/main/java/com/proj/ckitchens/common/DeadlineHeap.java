@@ -0,0 +1,136 @@
+package com.proj.ckitchens.common;
+
+/**
+ * indexed binary min-heap of ids (e.g. cell positions) keyed by a long deadline
+ * ids are in [0, capacity); add/remove/update are O(log n), peek is O(1), nothing is allocated after construction.
+ * Not thread safe - guarded by the owner's lock.
+ */
+public class DeadlineHeap {
+    public static final int NONE = -1;
+
+    private final int[] heap;
+    private final int[] heapIndex;
+    private final long[] deadlines;
+    private int size;
+
+    public DeadlineHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        this.deadlines = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            heapIndex[i] = NONE;
+        }
+    }
+
+    /**
+     * add an id, or move it if it is already in the heap
+     * @param id
+     * @param deadline
+     */
+    public void add(int id, long deadline) {
+        if (heapIndex[id] != NONE) {
+            update(id, deadline);
+            return;
+        }
+        deadlines[id] = deadline;
+        heap[size] = id;
+        heapIndex[id] = size;
+        siftUp(size++);
+    }
+
+    public void update(int id, long deadline) {
+        int i = heapIndex[id];
+        if (i == NONE) {
+            add(id, deadline);
+            return;
+        }
+        long old = deadlines[id];
+        deadlines[id] = deadline;
+        if (deadline < old) siftUp(i);
+        else siftDown(i);
+    }
+
+    /**
+     * @param id
+     * @return true if the id was in the heap
+     */
+    public boolean remove(int id) {
+        int i = heapIndex[id];
+        if (i == NONE) return false;
+        int last = heap[--size];
+        heapIndex[id] = NONE;
+        if (i != size) {
+            heap[i] = last;
+            heapIndex[last] = i;
+            siftDown(i);
+            if (heap[i] == last) siftUp(i);
+        }
+        return true;
+    }
+
+    /**
+     * @return id with the earliest deadline, {@link #NONE} if empty
+     */
+    public int peek() {
+        return size == 0 ? NONE : heap[0];
+    }
+
+    /**
+     * @return earliest deadline, Long.MAX_VALUE if empty
+     */
+    public long peekDeadline() {
+        return size == 0 ? Long.MAX_VALUE : deadlines[heap[0]];
+    }
+
+    public long deadlineOf(int id) {
+        return deadlines[id];
+    }
+
+    public boolean contains(int id) {
+        return heapIndex[id] != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        long d = deadlines[id];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (deadlines[p] <= d) break;
+            heap[i] = p;
+            heapIndex[p] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        heapIndex[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        long d = deadlines[id];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && deadlines[heap[right]] < deadlines[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (d <= deadlines[c]) break;
+            heap[i] = c;
+            heapIndex[c] = i;
+            i = child;
+        }
+        heap[i] = id;
+        heapIndex[id] = i;
+    }
+}
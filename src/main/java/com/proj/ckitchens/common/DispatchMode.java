@@ -0,0 +1,15 @@
+package com.proj.ckitchens.common;
+
+/**
+ * which order a courier picks up
+ * <ul>
+ *     <li>MATCHED: the order it was sent for; whichever of the order and the courier is ready first waits for
+ *     the other</li>
+ *     <li>FIFO: the cooked order of its kitchen that has waited longest; a courier arriving before any order is
+ *     cooked takes the next one, couriers waiting longest first</li>
+ * </ul>
+ */
+public enum DispatchMode {
+    MATCHED,
+    FIFO
+}
@@ -0,0 +1,15 @@
+package com.proj.ckitchens.common;
+
+/**
+ * which order is discarded when the overflow shelf is full and no order on it can be moved to its temperature shelf
+ * <ul>
+ *     <li>LOWEST_VALUE: the order with the lowest remaining value now</li>
+ *     <li>EARLIEST_EXPIRY: the order whose value reaches 0 first</li>
+ *     <li>RANDOM: any order</li>
+ * </ul>
+ */
+public enum EvictionPolicy {
+    LOWEST_VALUE,
+    EARLIEST_EXPIRY,
+    RANDOM
+}
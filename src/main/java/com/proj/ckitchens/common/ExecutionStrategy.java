@@ -0,0 +1,119 @@
+package com.proj.ckitchens.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * what runs the tasks and loops of the kitchen services
+ * <ul>
+ *     <li>FIXED: a fixed pool of platform threads</li>
+ *     <li>WORK_STEALING: a {@link ForkJoinPool}; idle workers take queued tasks from busy ones</li>
+ *     <li>VIRTUAL: a virtual thread per task, on a JDK that has them (21+); they are looked up by reflection so the
+ *     code still builds and runs on older JDKs, see {@link #isSupported()}</li>
+ * </ul>
+ */
+public enum ExecutionStrategy {
+    FIXED,
+    WORK_STEALING,
+    VIRTUAL;
+
+    /**
+     * @return false for VIRTUAL when the running JDK has no virtual threads
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || VirtualThreads.BUILDER != null;
+    }
+
+    /**
+     * @param threads pool size, ignored by VIRTUAL
+     * @param name prefix of the thread names
+     * @return
+     * @throws IllegalStateException if the strategy is not supported
+     */
+    public ExecutorService newExecutor(int threads, String name) {
+        if (threads < 1) throw new IllegalArgumentException("at least one thread is needed");
+        switch (this) {
+            case FIXED:
+                return Executors.newFixedThreadPool(threads, threadFactory(name));
+            case WORK_STEALING:
+                return new ForkJoinPool(threads, pool -> {
+                    ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    worker.setName(name + "-" + worker.getPoolIndex());
+                    return worker;
+                }, null, true);
+            default:
+                return VirtualThreads.newExecutor(name);
+        }
+    }
+
+    /**
+     * threads for long running loops: virtual threads for VIRTUAL, platform threads otherwise
+     * @param name prefix of the thread names
+     * @return
+     * @throws IllegalStateException if the strategy is not supported
+     */
+    public ThreadFactory threadFactory(String name) {
+        if (this == VIRTUAL) return VirtualThreads.factory(name);
+        AtomicInteger count = new AtomicInteger();
+        return task -> new Thread(task, name + "-" + count.getAndIncrement());
+    }
+
+    /**
+     * Thread.ofVirtual() and friends, resolved once
+     */
+    private static class VirtualThreads {
+        private static final Object BUILDER;
+        private static final Method NAME;
+        private static final Method FACTORY;
+        private static final Method NEW_EXECUTOR;
+
+        static {
+            Object builder = null;
+            Method name = null;
+            Method factory = null;
+            Method newExecutor = null;
+            try {
+                builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                name = builderType.getMethod("name", String.class, long.class);
+                factory = builderType.getMethod("factory");
+                newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            } catch (ReflectiveOperationException e) {
+                builder = null;
+            }
+            BUILDER = builder;
+            NAME = name;
+            FACTORY = factory;
+            NEW_EXECUTOR = newExecutor;
+        }
+
+        static ThreadFactory factory(String name) {
+            if (BUILDER == null) throw new IllegalStateException("virtual threads need JDK 21 or later");
+            try {
+                //builders are not thread safe, each factory gets its own
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                return (ThreadFactory) FACTORY.invoke(NAME.invoke(builder, name + "-", 0L));
+            } catch (IllegalAccessException | NoSuchMethodException e) {
+                throw new IllegalStateException("can not create virtual threads", e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("can not create virtual threads", e.getCause());
+            }
+        }
+
+        static ExecutorService newExecutor(String name) {
+            try {
+                return (ExecutorService) NEW_EXECUTOR.invoke(null, factory(name));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not create virtual threads", e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("can not create virtual threads", e.getCause());
+            }
+        }
+    }
+}
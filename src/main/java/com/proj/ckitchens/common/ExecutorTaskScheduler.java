@@ -0,0 +1,32 @@
+package com.proj.ckitchens.common;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TaskScheduler} on a {@link ScheduledExecutorService}, on the wall clock
+ */
+public class ExecutorTaskScheduler implements TaskScheduler {
+    private final ScheduledExecutorService executor;
+
+    public ExecutorTaskScheduler(int threads) {
+        this(Executors.newScheduledThreadPool(threads));
+    }
+
+    public ExecutorTaskScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        ScheduledFuture<?> future = executor.schedule(task, delay, unit);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
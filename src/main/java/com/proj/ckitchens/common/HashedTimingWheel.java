@@ -0,0 +1,261 @@
+package com.proj.ckitchens.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * hashed timing wheel {@link TaskScheduler} on the wall clock, for many short-lived timers such as courier arrivals
+ * a task goes into the bucket of its deadline tick, with the number of full wheel rotations left before it is due.
+ * Scheduling and cancelling are O(1): new tasks are queued and moved into their bucket by the ticker thread,
+ * cancelled tasks are only marked and dropped when their bucket comes up.
+ * Each tick the due tasks of the current bucket are handed to the worker pool in one batch per worker,
+ * so a task runs up to one tick late, never early. The ticker thread starts with the first task.
+ */
+public class HashedTimingWheel implements TaskScheduler {
+    private static final int SCHEDULED = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final int workerCount;
+    private final Executor workers;
+    //null when the workers are shared and not shut down with the wheel
+    private final ExecutorService ownWorkers;
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Thread ticker;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private long startTime;
+    private volatile boolean shutdown;
+    private long tick;
+
+    /**
+     * @param tickDuration
+     * @param unit
+     * @param wheelSize number of buckets, rounded up to a power of 2
+     * @param workerCount threads running due tasks
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, int workerCount) {
+        this(tickDuration, unit, wheelSize, Executors.newFixedThreadPool(workerCount), workerCount, 
+                task -> new Thread(task, HashedTimingWheel.class.getSimpleName()), true);
+    }
+
+    /**
+     * due tasks run on an executor shared with others, which is left running on {@link #shutdown()}
+     * @param tickDuration
+     * @param unit
+     * @param wheelSize number of buckets, rounded up to a power of 2
+     * @param workers
+     * @param batches most batches the due tasks of a tick are split into
+     * @param tickerFactory creates the ticker thread
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor workers, int batches,
+                             ThreadFactory tickerFactory) {
+        this(tickDuration, unit, wheelSize, workers, batches, tickerFactory, false);
+    }
+
+    private HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor workers, int workerCount,
+                              ThreadFactory tickerFactory, boolean ownsWorkers) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tick duration must be positive");
+        if (workerCount < 1) throw new IllegalArgumentException("at least one worker is needed");
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.workerCount = workerCount;
+        this.workers = workers;
+        this.ownWorkers = ownsWorkers ? (ExecutorService) workers : null;
+        this.ticker = tickerFactory.newThread(this::runTicker);
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        if (shutdown) throw new RejectedExecutionException("scheduler is shut down");
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)), outstanding);
+        outstanding.incrementAndGet();
+        added.add(timeout);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startTime = System.nanoTime();
+            ticker.start();
+        }
+        //a shutdown since the check above may have stopped the workers before any ticker ran
+        if (shutdown) {
+            timeout.cancel();
+            throw new RejectedExecutionException("scheduler is shut down");
+        }
+        return timeout;
+    }
+
+    /**
+     * tasks already scheduled still run; the ticker stops and the workers finish once none is left
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (started.compareAndSet(false, true)) {
+            shutdownWorkers();
+        } else {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * @return tasks scheduled and not yet run or cancelled
+     */
+    public int pending() {
+        return outstanding.get();
+    }
+
+    private void runTicker() {
+        while (!(shutdown && outstanding.get() == 0)) {
+            waitForNextTick();
+            transferAdded();
+            List<Runnable> due = wheel[(int) (tick & mask)].expire(outstanding);
+            if (!due.isEmpty()) handOff(due);
+            tick++;
+        }
+        shutdownWorkers();
+    }
+
+    private void shutdownWorkers() {
+        if (ownWorkers != null) ownWorkers.shutdown();
+    }
+
+    private void waitForNextTick() {
+        long deadline = startTime + (tick + 1) * tickNanos;
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (shutdown && outstanding.get() == 0) return;
+        }
+    }
+
+    /**
+     * move newly scheduled tasks into the bucket of their deadline tick; tasks already due go into the current one
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state != SCHEDULED) continue;
+            //bucket k is processed once time passes the end of tick k, which is after any deadline within tick k
+            long due = Math.max(tick, Math.floorDiv(timeout.deadline - startTime, tickNanos));
+            timeout.rounds = (due - tick) / wheel.length;
+            wheel[(int) (due & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * split the due tasks into one batch per worker
+     * @param due
+     */
+    private void handOff(List<Runnable> due) {
+        int batches = Math.min(workerCount, due.size());
+        int size = (due.size() + batches - 1) / batches;
+        for (int from = 0; from < due.size(); from += size) {
+            List<Runnable> batch = due.subList(from, Math.min(due.size(), from + size));
+            Runnable run = () -> {
+                for (Runnable task : batch) {
+                    task.run();
+                }
+            };
+            try {
+                workers.execute(run);
+            } catch (RejectedExecutionException e) {
+                //shared workers already shut down: the ticker runs the batch
+                run.run();
+            }
+        }
+    }
+
+    /**
+     * intrusive doubly linked list of timeouts, only touched by the ticker thread
+     */
+    private static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            if (tail == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) head = timeout.next; else timeout.previous.next = timeout.next;
+            if (timeout.next == null) tail = timeout.previous; else timeout.next.previous = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        /**
+         * @return tasks due this rotation, removed from the bucket with the cancelled ones
+         */
+        List<Runnable> expire(AtomicInteger outstanding) {
+            List<Runnable> due = new ArrayList<>();
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state == CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        outstanding.decrementAndGet();
+                        due.add(timeout.task);
+                    }
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            return due;
+        }
+    }
+
+    private static class Timeout implements ScheduledTask {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger outstanding;
+        private volatile int state = SCHEDULED;
+        private long rounds;
+        private Timeout previous;
+        private Timeout next;
+
+        Timeout(Runnable task, long deadline, AtomicInteger outstanding) {
+            this.task = task;
+            this.deadline = deadline;
+            this.outstanding = outstanding;
+        }
+
+        @Override
+        public void cancel() {
+            if (STATE.compareAndSet(this, SCHEDULED, CANCELLED)) outstanding.decrementAndGet();
+        }
+
+        boolean expire() {
+            return STATE.compareAndSet(this, SCHEDULED, EXPIRED);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.proj.ckitchens.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * number of tasks started and not yet done, with a wait for none to be left
+ * increments and decrements are lock-free; only a change to 0 takes the monitor, to wake the waiters.
+ * A task may be done before it is counted as started, so the count can dip below 0 for a moment.
+ */
+public class InFlightCounter {
+    private final AtomicLong count = new AtomicLong();
+
+    public void increment() {
+        //back to 0 when the decrement came first
+        if (count.incrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public void decrement() {
+        if (count.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return true if none was left in time
+     * @throws InterruptedException
+     */
+    public boolean awaitZero(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (count.get() != 0) {
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(this, wait);
+            }
+            return true;
+        }
+    }
+}
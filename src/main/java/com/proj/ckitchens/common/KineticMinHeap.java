@@ -0,0 +1,179 @@
+package com.proj.ckitchens.common;
+
+/**
+ * indexed min-heap of ids whose keys change linearly with time: key(t) = intercept - slope * t
+ * Orders decay at different rates, so the order with the lowest value changes as time passes even when nothing is
+ * placed or removed. This is a kinetic heap: every parent/child pair carries a certificate (the time at which the
+ * child's key drops below its parent's), kept in a {@link DeadlineHeap}. {@link #advance(long)} swaps the pairs whose
+ * certificates have failed, so the root is the minimum at the current time.
+ * add/remove are O(log^2 n) (each swap refreshes the certificates around it); peek is O(1) after advance.
+ * Time must not go backwards. Not thread safe - guarded by the owner's lock.
+ */
+public class KineticMinHeap {
+    public static final int NONE = -1;
+
+    private final int[] heap;
+    private final int[] heapIndex;
+    private final double[] intercepts;
+    private final double[] slopes;
+    private final DeadlineHeap certificates;
+    private int size;
+    private long now = Long.MIN_VALUE;
+
+    public KineticMinHeap(int capacity) {
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        intercepts = new double[capacity];
+        slopes = new double[capacity];
+        certificates = new DeadlineHeap(capacity);
+        for (int i = 0; i < capacity; i++) {
+            heapIndex[i] = NONE;
+        }
+    }
+
+    /**
+     * move the heap to time t, fixing every parent/child pair whose order changed since the last call
+     * @param t
+     */
+    public void advance(long t) {
+        if (t > now) now = t;
+        while (certificates.peekDeadline() <= now) {
+            int pos = certificates.peek();
+            int parent = (pos - 1) >>> 1;
+            if (key(heap[pos]) < key(heap[parent])) {
+                swap(pos, parent);
+            } else {
+                refreshCertificate(pos);
+            }
+        }
+    }
+
+    /**
+     * @param id
+     * @param intercept key at time 0
+     * @param slope key decrease per unit of time
+     * @param t current time
+     */
+    public void add(int id, double intercept, double slope, long t) {
+        advance(t);
+        if (heapIndex[id] != NONE) remove(id, t);
+        intercepts[id] = intercept;
+        slopes[id] = slope;
+        int pos = size++;
+        heap[pos] = id;
+        heapIndex[id] = pos;
+        refreshAround(pos);
+        siftUp(pos);
+    }
+
+    /**
+     * @param id
+     * @param t current time
+     * @return true if the id was in the heap
+     */
+    public boolean remove(int id, long t) {
+        advance(t);
+        int pos = heapIndex[id];
+        if (pos == NONE) return false;
+        heapIndex[id] = NONE;
+        int lastPos = --size;
+        certificates.remove(lastPos);
+        if (pos != lastPos) {
+            int last = heap[lastPos];
+            heap[pos] = last;
+            heapIndex[last] = pos;
+            refreshAround(pos);
+            siftDown(pos);
+            siftUp(heapIndex[last]);
+        } else if (pos > 0) {
+            refreshAround((pos - 1) >>> 1);
+        }
+        return true;
+    }
+
+    /**
+     * @param t current time
+     * @return id with the lowest key at time t, {@link #NONE} if empty
+     */
+    public int peek(long t) {
+        advance(t);
+        return size == 0 ? NONE : heap[0];
+    }
+
+    public boolean contains(int id) {
+        return heapIndex[id] != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private double key(int id) {
+        return intercepts[id] - slopes[id] * now;
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (key(heap[parent]) <= key(heap[pos])) return;
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) return;
+            if (child + 1 < size && key(heap[child + 1]) < key(heap[child])) child++;
+            if (key(heap[pos]) <= key(heap[child])) return;
+            swap(child, pos);
+            pos = child;
+        }
+    }
+
+    /**
+     * swap a child with its parent and refresh every certificate that involves either position
+     */
+    private void swap(int child, int parent) {
+        int c = heap[child];
+        int p = heap[parent];
+        heap[child] = p;
+        heap[parent] = c;
+        heapIndex[p] = child;
+        heapIndex[c] = parent;
+        refreshAround(parent);
+        refreshAround(child);
+    }
+
+    /**
+     * refresh the certificate of pos (with its parent) and of its children (with pos)
+     */
+    private void refreshAround(int pos) {
+        refreshCertificate(pos);
+        refreshCertificate(2 * pos + 1);
+        refreshCertificate(2 * pos + 2);
+    }
+
+    private void refreshCertificate(int pos) {
+        if (pos <= 0 || pos >= size) {
+            if (pos > 0 && pos < heap.length) certificates.remove(pos);
+            return;
+        }
+        int c = heap[pos];
+        int p = heap[(pos - 1) >>> 1];
+        if (key(c) < key(p)) {
+            certificates.add(pos, now);
+            return;
+        }
+        double slopeGap = slopes[c] - slopes[p];
+        if (slopeGap <= 0) {
+            //child decays no faster than parent, it never drops below
+            certificates.remove(pos);
+            return;
+        }
+        double crossing = (intercepts[c] - intercepts[p]) / slopeGap;
+        long failure = crossing >= Long.MAX_VALUE ? Long.MAX_VALUE - 1 : (long) Math.ceil(crossing);
+        certificates.add(pos, Math.max(now + 1, failure));
+    }
+}
@@ -0,0 +1,14 @@
+package com.proj.ckitchens.common;
+
+/**
+ * how shelf operations are serialized
+ * <ul>
+ *     <li>GLOBAL: every shelf mutation also takes the master lock, so all shelves are mutated one at a time</li>
+ *     <li>PER_SHELF: only the locks of the shelves touched are held; when two shelves are locked together
+ *     the overflow shelf is always locked before a temperature shelf</li>
+ * </ul>
+ */
+public enum LockingMode {
+    GLOBAL,
+    PER_SHELF
+}
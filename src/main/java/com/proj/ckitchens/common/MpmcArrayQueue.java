@@ -0,0 +1,233 @@
+package com.proj.ckitchens.common;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * bounded lock-free queue for any number of producers and consumers, on a preallocated array
+ * every slot carries a sequence number telling whether it is free for the producer or filled for the consumer of a
+ * given position, so producers and consumers only CAS the tail and head positions and never lock.
+ * {@link #offer} and {@link #poll} never wait; {@link #put} and {@link #take} park while the queue is full or empty.
+ * A successful offer or poll unparks one waiter of the other side, not all of them.
+ * After {@link #shutdown()} offers fail, waiters wake up, and consumers drain what is left and then get null.
+ * @param <T>
+ */
+public class MpmcArrayQueue<T> {
+    private final AtomicReferenceArray<T> buffer;
+    //slot i is free for the producer of position p when sequence == p, filled for its consumer when sequence == p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final ConcurrentLinkedQueue<Thread> waitingConsumers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+    private volatile boolean shutdown;
+
+    /**
+     * @param capacity rounded up to a power of 2
+     */
+    public MpmcArrayQueue(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        int size = capacity == 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param e
+     * @return false if the queue is full or shut down
+     */
+    public boolean offer(T e) {
+        if (e == null) throw new NullPointerException();
+        if (shutdown) return false;
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (diff < 0) {
+                //the consumer of the previous lap has not freed the slot
+                return false;
+            }
+        }
+        buffer.lazySet(slot, e);
+        //a volatile store: the waiter check below must not be ordered before it, or a consumer registering and
+        //polling meanwhile misses both the element and the wake up
+        sequences.set(slot, position + 1);
+        wakeOne(waitingConsumers);
+        return true;
+    }
+
+    /**
+     * @return the head, null if the queue is empty
+     */
+    public T poll() {
+        T e = dequeue();
+        if (e != null) wakeOne(waitingProducers);
+        return e;
+    }
+
+    /**
+     * move up to max elements into batch
+     * @param batch
+     * @param max
+     * @return number of elements moved
+     */
+    public int drainTo(Collection<? super T> batch, int max) {
+        int count = 0;
+        T e;
+        while (count < max && (e = dequeue()) != null) {
+            batch.add(e);
+            count++;
+        }
+        if (count > 0) wakeOne(waitingProducers);
+        return count;
+    }
+
+    /**
+     * offer, parking while the queue is full
+     * @param e
+     * @param timeout
+     * @param unit
+     * @return false if still full after the timeout, or shut down
+     * @throws InterruptedException
+     */
+    public boolean put(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread me = Thread.currentThread();
+        while (!offer(e)) {
+            if (shutdown) return false;
+            waitingProducers.add(me);
+            try {
+                //a consumer may have made room before we were registered
+                if (offer(e)) break;
+                if (shutdown || !park(deadline)) return false;
+            } finally {
+                waitingProducers.remove(me);
+            }
+        }
+        //a drain may have made room for several producers but woken only us: pass it on
+        if (size() < capacity()) wakeOne(waitingProducers);
+        return true;
+    }
+
+    /**
+     * @return the head, waiting for one; null once shut down and empty
+     * @throws InterruptedException
+     */
+    public T take() throws InterruptedException {
+        return take(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return the head, null if none arrived in time or once shut down and empty
+     * @throws InterruptedException
+     */
+    public T take(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + unit.toNanos(timeout);
+        Thread me = Thread.currentThread();
+        T e;
+        while ((e = poll()) == null) {
+            if (shutdown) return poll();
+            waitingConsumers.add(me);
+            try {
+                //a producer may have added one before we were registered
+                if ((e = poll()) != null) break;
+                if (shutdown) return null;
+                if (!park(deadline)) return null;
+            } finally {
+                waitingConsumers.remove(me);
+            }
+        }
+        //the wake up may have gone to a consumer that didn't need it: pass it on
+        if (!isEmpty()) wakeOne(waitingConsumers);
+        return e;
+    }
+
+    /**
+     * @return approximate number of elements
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * reject new elements and wake every waiter; elements already queued can still be taken
+     */
+    public void shutdown() {
+        shutdown = true;
+        waitingConsumers.forEach(LockSupport::unpark);
+        waitingProducers.forEach(LockSupport::unpark);
+    }
+
+    private T dequeue() {
+        long position;
+        int slot;
+        while (true) {
+            position = head.get();
+            slot = (int) position & mask;
+            long diff = sequences.get(slot) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) break;
+            } else if (diff < 0) {
+                //the producer of this position has not filled the slot
+                return null;
+            }
+        }
+        T e = buffer.get(slot);
+        buffer.lazySet(slot, null);
+        //volatile for the same reason as in offer
+        sequences.set(slot, position + mask + 1);
+        return e;
+    }
+
+    private static void wakeOne(ConcurrentLinkedQueue<Thread> waiters) {
+        if (waiters.isEmpty()) return;
+        Thread waiter = waiters.poll();
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+
+    /**
+     * @param deadline {@link System#nanoTime()}, Long.MAX_VALUE for none
+     * @return false if the deadline passed
+     * @throws InterruptedException
+     */
+    private boolean park(long deadline) throws InterruptedException {
+        if (deadline == Long.MAX_VALUE) {
+            LockSupport.park(this);
+        } else {
+            long wait = deadline - System.nanoTime();
+            if (wait <= 0) return false;
+            LockSupport.parkNanos(this, wait);
+        }
+        if (Thread.interrupted()) throw new InterruptedException();
+        return true;
+    }
+}
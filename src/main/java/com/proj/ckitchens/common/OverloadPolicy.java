@@ -0,0 +1,18 @@
+package com.proj.ckitchens.common;
+
+/**
+ * what order intake does with an order when its queue is full
+ * <ul>
+ *     <li>BLOCK: the caller waits for room, up to a timeout, then the order is rejected</li>
+ *     <li>REJECT: the order is rejected at once</li>
+ *     <li>SHED_LOWEST_VALUE: the queued or new order with the least value is dropped</li>
+ *     <li>REDIRECT: the order goes to another intake, and is rejected if that one is full too; only for intakes
+ *     given one to redirect to, not for the single intake of a process</li>
+ * </ul>
+ */
+public enum OverloadPolicy {
+    BLOCK,
+    REJECT,
+    SHED_LOWEST_VALUE,
+    REDIRECT
+}
@@ -0,0 +1,15 @@
+package com.proj.ckitchens.common;
+
+/**
+ * how a placement picks the shard of a temperature to try first
+ * <ul>
+ *     <li>HASH: the shard given by the order id, so a delivery finds the order on its first lookup unless the
+ *     shard was full at placement</li>
+ *     <li>LEAST_LOADED: the shard with the most free cells at placement</li>
+ * </ul>
+ * when the first shard is full the others are tried before falling back to overflow
+ */
+public enum ShardRouting {
+    HASH,
+    LEAST_LOADED
+}
@@ -0,0 +1,87 @@
+package com.proj.ckitchens.common;
+
+import com.proj.ckitchens.utils.DataIntegrityViolation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock-free allocator of cell positions on a shelf
+ * one bit per cell (1 = free), claimed and released with CAS, no allocation per claim/release
+ * safe to call without holding the shelf lock
+ */
+public class SlotAllocator {
+    private final int capacity;
+    private final AtomicLongArray freeBits;
+    private final AtomicInteger available;
+
+    public SlotAllocator(int capacity) {
+        this.capacity = capacity;
+        this.freeBits = new AtomicLongArray((capacity + 63) >>> 6);
+        this.available = new AtomicInteger(capacity);
+        for (int w = 0; w < freeBits.length(); w++) {
+            int bitsInWord = Math.min(64, capacity - (w << 6));
+            freeBits.set(w, bitsInWord == 64 ? -1L : (1L << bitsInWord) - 1);
+        }
+    }
+
+    /**
+     * claim the lowest free position
+     * @return claimed position, -1 if no position is free
+     */
+    public int claim() {
+        if (available.get() <= 0) return -1;
+        for (int w = 0; w < freeBits.length(); w++) {
+            long bits = freeBits.get(w);
+            while (bits != 0) {
+                long bit = Long.lowestOneBit(bits);
+                if (freeBits.compareAndSet(w, bits, bits & ~bit)) {
+                    available.decrementAndGet();
+                    return (w << 6) + Long.numberOfTrailingZeros(bit);
+                }
+                bits = freeBits.get(w);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * return a claimed position to the free set
+     * @param pos
+     */
+    public void release(int pos) {
+        int w = pos >>> 6;
+        long bit = 1L << pos;
+        while (true) {
+            long bits = freeBits.get(w);
+            if ((bits & bit) != 0) throw new DataIntegrityViolation("Error: position " + pos + " released but already free");
+            if (freeBits.compareAndSet(w, bits, bits | bit)) {
+                available.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    public boolean isFree(int pos) {
+        return (freeBits.get(pos >>> 6) & (1L << pos)) != 0;
+    }
+
+    public boolean hasAvailable() {
+        return available.get() > 0;
+    }
+
+    /**
+     * @return number of free positions; may lag a concurrent claim/release by one update
+     */
+    public int size() {
+        return available.get();
+    }
+
+    public boolean isEmpty() {
+        return !hasAvailable();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
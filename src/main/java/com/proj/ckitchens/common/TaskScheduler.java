@@ -0,0 +1,33 @@
+package com.proj.ckitchens.common;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs tasks after a delay measured on a {@link Clock}
+ * {@link ExecutorTaskScheduler} runs them on threads on the wall clock, {@link VirtualTimeScheduler} runs them in
+ * time order on virtual time
+ */
+public interface TaskScheduler {
+
+    /**
+     * @param task
+     * @param delay
+     * @param unit
+     * @return handle to cancel the task
+     * @throws RejectedExecutionException if the scheduler is shut down
+     */
+    ScheduledTask schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * tasks already scheduled still run, new ones are rejected
+     */
+    void shutdown();
+
+    interface ScheduledTask {
+        /**
+         * the task won't run if it has not started
+         */
+        void cancel();
+    }
+}
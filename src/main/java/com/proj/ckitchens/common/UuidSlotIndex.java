@@ -0,0 +1,130 @@
+package com.proj.ckitchens.common;
+
+import java.util.UUID;
+
+/**
+ * order id to cell position index for a shelf
+ * open addressing with linear probing over parallel primitive arrays, keyed by the two longs of the UUID.
+ * The table is sized once from the shelf capacity, so put/get/remove never allocate.
+ * Removal uses backward shift, so there are no tombstones to clean up.
+ * Not thread safe - guarded by the shelf lock.
+ */
+public class UuidSlotIndex {
+    public static final int NOT_FOUND = -1;
+    private static final int EMPTY = -1;
+
+    private final long[] mostSigBits;
+    private final long[] leastSigBits;
+    private final int[] slots;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    /**
+     * @param maxSize maximum number of ids held at once, i.e. the shelf capacity
+     */
+    public UuidSlotIndex(int maxSize) {
+        int tableSize = Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1;
+        this.mostSigBits = new long[tableSize];
+        this.leastSigBits = new long[tableSize];
+        this.slots = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.maxSize = maxSize;
+        for (int i = 0; i < tableSize; i++) {
+            slots[i] = EMPTY;
+        }
+    }
+
+    /**
+     * @param id
+     * @param slot cell position, must not be negative
+     * @return previous position of the id, {@link #NOT_FOUND} if the id was not indexed
+     */
+    public int put(UUID id, int slot) {
+        if (slot < 0) throw new IllegalArgumentException("slot must not be negative: " + slot);
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int i = home(msb, lsb);
+        while (slots[i] != EMPTY) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) {
+                int previous = slots[i];
+                slots[i] = slot;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == maxSize) throw new IllegalStateException("index is full, capacity " + maxSize);
+        mostSigBits[i] = msb;
+        leastSigBits[i] = lsb;
+        slots[i] = slot;
+        size++;
+        return NOT_FOUND;
+    }
+
+    /**
+     * @param id
+     * @return cell position of the id, {@link #NOT_FOUND} if not indexed
+     */
+    public int get(UUID id) {
+        int i = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return i == EMPTY ? NOT_FOUND : slots[i];
+    }
+
+    public boolean containsKey(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) != EMPTY;
+    }
+
+    /**
+     * @param id
+     * @return cell position the id was mapped to, {@link #NOT_FOUND} if not indexed
+     */
+    public int remove(UUID id) {
+        int i = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (i == EMPTY) return NOT_FOUND;
+        int removed = slots[i];
+        slots[i] = EMPTY;
+        size--;
+        //shift back the entries of the probe chain so lookups never stop early at the hole
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slots[j] == EMPTY) break;
+            int h = home(mostSigBits[j], leastSigBits[j]);
+            boolean stays = hole <= j ? (hole < h && h <= j) : (hole < h || h <= j);
+            if (!stays) {
+                mostSigBits[hole] = mostSigBits[j];
+                leastSigBits[hole] = leastSigBits[j];
+                slots[hole] = slots[j];
+                slots[j] = EMPTY;
+                hole = j;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int i = home(msb, lsb);
+        while (slots[i] != EMPTY) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) return i;
+            i = (i + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private int home(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,140 @@
+package com.proj.ckitchens.common;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * discrete-event scheduler on virtual time
+ * time only moves when {@link #runUntil(long)}, {@link #advance(long, TimeUnit)} or {@link #runAll()} is called:
+ * due tasks run one at a time on the calling thread, in time order and in scheduling order for equal times,
+ * and the clock jumps to each task's time before it runs. A run is deterministic for the same inputs.
+ * Tasks may schedule more tasks; they must not call the run methods themselves.
+ */
+public class VirtualTimeScheduler implements TaskScheduler, Clock {
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final long epochMillis;
+    private volatile long now;
+    private long sequence;
+    private boolean shutdown;
+
+    public VirtualTimeScheduler() {
+        this(0);
+    }
+
+    /**
+     * @param epochMillis {@link #currentTimeMillis()} at virtual time 0
+     */
+    public VirtualTimeScheduler(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return epochMillis + TimeUnit.NANOSECONDS.toMillis(now);
+    }
+
+    @Override
+    public synchronized ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        if (shutdown) throw new RejectedExecutionException("scheduler is shut down");
+        Event event = new Event(now + unit.toNanos(Math.max(0, delay)), sequence++, task);
+        events.add(event);
+        return event;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * run tasks due at or before time, then set the clock to time if it is later
+     * @param time virtual {@link #nanoTime()}, starting at 0
+     * @return number of tasks run
+     */
+    public int runUntil(long time) {
+        int ran = 0;
+        Event event;
+        while ((event = next(time)) != null) {
+            event.task.run();
+            ran++;
+        }
+        synchronized (this) {
+            if (time > now) now = time;
+        }
+        return ran;
+    }
+
+    /**
+     * @param delay
+     * @param unit
+     * @return number of tasks run
+     */
+    public int advance(long delay, TimeUnit unit) {
+        return runUntil(now + unit.toNanos(delay));
+    }
+
+    /**
+     * run tasks until none is left; the clock stops at the last task's time
+     * @return number of tasks run
+     */
+    public int runAll() {
+        int ran = 0;
+        Event event;
+        while ((event = next(Long.MAX_VALUE)) != null) {
+            event.task.run();
+            ran++;
+        }
+        return ran;
+    }
+
+    /**
+     * @return number of tasks scheduled and not run yet, cancelled ones included
+     */
+    public synchronized int pending() {
+        return events.size();
+    }
+
+    /**
+     * @param time
+     * @return the next live task due at or before time, with the clock moved to it; null if there is none
+     */
+    private synchronized Event next(long time) {
+        while (!events.isEmpty() && events.peek().time <= time) {
+            Event event = events.poll();
+            if (event.cancelled) continue;
+            now = event.time;
+            return event;
+        }
+        return null;
+    }
+
+    private static class Event implements ScheduledTask, Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        Event(long time, long sequence, Runnable task) {
+            this.time = time;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -1,43 +1,36 @@
 package com.proj.ckitchens.config;
 
-import com.proj.ckitchens.common.Temperature;
 import com.proj.ckitchens.model.Order;
-import com.proj.ckitchens.model.Shelf;
 import com.proj.ckitchens.svc.*;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 @Configuration
+@EnableConfigurationProperties(KitchenProperties.class)
 public class BeanConfiguration {
     private final LinkedBlockingQueue<Order> deliveryQueue = new LinkedBlockingQueue<>();
-    private final LinkedBlockingQueue<Order> orders = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<Order> orders;
+    private final KitchenProperties kitchenProperties;
+    private final KitchenProperties.IntakeProperties intake;
 
-    @Bean
-    public Shelf hotShelf() {
-        Lock lock = new ReentrantLock(true);
-        return new Shelf(lock, 10, Temperature.HOT.name());
-    }
-
-    @Bean
-    public Shelf coldShelf() {
-        Lock lock = new ReentrantLock(true);
-        return new Shelf(lock, 10, Temperature.COLD.name());
+    public BeanConfiguration(KitchenProperties kitchenProperties) {
+        this.kitchenProperties = kitchenProperties;
+        this.intake = kitchenProperties.getIntake();
+        this.orders = new LinkedBlockingQueue<>(intake.getCapacity());
     }
 
     @Bean
-    public Shelf frozenShelf() {
-        Lock lock = new ReentrantLock(true);
-        return new Shelf(lock, 10, Temperature.FROZEN.name());
+    public KitchenRegistry kitchenRegistry(KitchenProperties kitchenProperties) {
+        return KitchenRegistry.create(kitchenProperties, JournalMode.FULL);
     }
 
     @Bean
-    public Shelf overflowShelf() {
-        Lock lock = new ReentrantLock(true);
-        return new Shelf(lock, 15, "Overflow");
+    public KitchenExecutor kitchenExecutor(KitchenProperties kitchenProperties) {
+        return KitchenExecutor.create(kitchenProperties);
     }
 
     @Bean
@@ -46,23 +39,33 @@ public class BeanConfiguration {
     }
 
     @Bean
-    public ChefMgmtService chefMgmtService() {
-        return new ChefMgmtService(3, dispatchService());
+    public ChefMgmtService chefMgmtService(KitchenRegistry kitchenRegistry, KitchenExecutor kitchenExecutor) {
+        return new ChefMgmtService(dispatchService(), kitchenRegistry, kitchenExecutor,
+                kitchenProperties.getChefScheduling());
     }
 
     @Bean
-    public DeliveryService deliveryService() {
-        return new DeliveryService(3, dispatchService());
+    public DeliveryService deliveryService(KitchenRegistry kitchenRegistry, KitchenExecutor kitchenExecutor) {
+        return new DeliveryService(dispatchService(), kitchenRegistry, kitchenExecutor, kitchenProperties.getDispatch(),
+                kitchenProperties.getCouriers(), kitchenProperties.getOrdersPerTrip());
     }
 
     @Bean
     public OrderMgmtService orderMgmtService() {
-        return new OrderMgmtService(orders);
+        return OrderMgmtService.create(orders, intake);
+    }
+
+    @Bean
+    public CleanupService cleanupService(KitchenRegistry kitchenRegistry, KitchenExecutor kitchenExecutor) {
+        return new CleanupService(kitchenRegistry, kitchenExecutor);
     }
 
     @Bean
-    public CleanupService cleanupService() {
-        return new CleanupService();
+    public KitchenLifecycle kitchenLifecycle(OrderMgmtService orderMgmtService, ChefMgmtService chefMgmtService,
+                                             DeliveryService deliveryService, CleanupService cleanupService,
+                                             KitchenRegistry kitchenRegistry, KitchenExecutor kitchenExecutor) {
+        return new KitchenLifecycle(orderMgmtService, dispatchService(), chefMgmtService, deliveryService,
+                cleanupService, kitchenRegistry, kitchenExecutor);
     }
 
 }
@@ -0,0 +1,253 @@
+package com.proj.ckitchens.config;
+
+import com.proj.ckitchens.common.ChefScheduling;
+import com.proj.ckitchens.common.DispatchMode;
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.common.LockingMode;
+import com.proj.ckitchens.common.OverloadPolicy;
+import com.proj.ckitchens.common.ShardRouting;
+import com.proj.ckitchens.model.Order;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * kitchen settings under the "kitchen" prefix of application.properties
+ * <pre>
+ * kitchen.ids=default
+ * kitchen.hot.capacity=10
+ * kitchen.hot.shards=1
+ * kitchen.overflow.capacity=15
+ * kitchen.routing=HASH
+ * kitchen.locking-mode=PER_SHELF
+ * kitchen.execution=FIXED
+ * kitchen.threads=3
+ * kitchen.chef-scheduling=AFFINE
+ * kitchen.dispatch=MATCHED
+ * kitchen.couriers=0
+ * kitchen.orders-per-trip=1
+ * kitchen.drain-millis=10000
+ * kitchen.intake.capacity=1000
+ * kitchen.intake.overload=BLOCK
+ * kitchen.intake.block-millis=100
+ * </pre>
+ * capacity is the total for a temperature, split evenly over its shards; overflow is always a single shelf.
+ * Every kitchen in kitchen.ids gets its own shelves with these settings; execution, threads, chef-scheduling,
+ * dispatch, couriers, orders-per-trip, drain-millis and intake are for the services shared by all of them.
+ * Bound by Spring when the application context is used, or read with {@link #load(String)} otherwise.
+ */
+@ConfigurationProperties(prefix = "kitchen")
+public class KitchenProperties {
+    private static final String PREFIX = "kitchen";
+
+    private List<String> ids = new ArrayList<>(Collections.singletonList(Order.DEFAULT_KITCHEN));
+    private final ShelfProperties hot = new ShelfProperties(10);
+    private final ShelfProperties cold = new ShelfProperties(10);
+    private final ShelfProperties frozen = new ShelfProperties(10);
+    private final ShelfProperties overflow = new ShelfProperties(15);
+    private ShardRouting routing = ShardRouting.HASH;
+    private LockingMode lockingMode = LockingMode.PER_SHELF;
+    private ExecutionStrategy execution = ExecutionStrategy.FIXED;
+    private int threads = 3;
+    private ChefScheduling chefScheduling = ChefScheduling.AFFINE;
+    private DispatchMode dispatch = DispatchMode.MATCHED;
+    private int couriers = 0;
+    private int ordersPerTrip = 1;
+    private long drainMillis = 10_000;
+    private final IntakeProperties intake = new IntakeProperties();
+
+    /**
+     * read kitchen settings from a classpath properties file; missing keys keep their defaults
+     * @param resource
+     * @return
+     */
+    public static KitchenProperties load(String resource) {
+        KitchenProperties kitchen = new KitchenProperties();
+        Properties props = new Properties();
+        try (InputStream in = KitchenProperties.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) return kitchen;
+            props.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read " + resource, e);
+        }
+        //the same binding Spring applies to @ConfigurationProperties: relaxed names, lists and enums
+        Map<Object, Object> source = new HashMap<>(props);
+        new Binder(new MapConfigurationPropertySource(source)).bind(PREFIX, Bindable.ofInstance(kitchen));
+        return kitchen;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public ShelfProperties getHot() {
+        return hot;
+    }
+
+    public ShelfProperties getCold() {
+        return cold;
+    }
+
+    public ShelfProperties getFrozen() {
+        return frozen;
+    }
+
+    public ShelfProperties getOverflow() {
+        return overflow;
+    }
+
+    public ShardRouting getRouting() {
+        return routing;
+    }
+
+    public void setRouting(ShardRouting routing) {
+        this.routing = routing;
+    }
+
+    public LockingMode getLockingMode() {
+        return lockingMode;
+    }
+
+    public void setLockingMode(LockingMode lockingMode) {
+        this.lockingMode = lockingMode;
+    }
+
+    public ExecutionStrategy getExecution() {
+        return execution;
+    }
+
+    public void setExecution(ExecutionStrategy execution) {
+        this.execution = execution;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public ChefScheduling getChefScheduling() {
+        return chefScheduling;
+    }
+
+    public void setChefScheduling(ChefScheduling chefScheduling) {
+        this.chefScheduling = chefScheduling;
+    }
+
+    public DispatchMode getDispatch() {
+        return dispatch;
+    }
+
+    public void setDispatch(DispatchMode dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    /**
+     * @return size of the courier fleet, 0 for no limit
+     */
+    public int getCouriers() {
+        return couriers;
+    }
+
+    public void setCouriers(int couriers) {
+        this.couriers = couriers;
+    }
+
+    /**
+     * @return most orders of the same kitchen a courier carries
+     */
+    public int getOrdersPerTrip() {
+        return ordersPerTrip;
+    }
+
+    public void setOrdersPerTrip(int ordersPerTrip) {
+        this.ordersPerTrip = ordersPerTrip;
+    }
+
+    /**
+     * @return longest wait at shutdown for queued, cooking and dispatched orders to complete
+     */
+    public long getDrainMillis() {
+        return drainMillis;
+    }
+
+    public void setDrainMillis(long drainMillis) {
+        this.drainMillis = drainMillis;
+    }
+
+    public IntakeProperties getIntake() {
+        return intake;
+    }
+
+    public static class ShelfProperties {
+        private int capacity;
+        private int shards = 1;
+
+        public ShelfProperties(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+    }
+
+    public static class IntakeProperties {
+        private int capacity = 1000;
+        private OverloadPolicy overload = OverloadPolicy.BLOCK;
+        private long blockMillis = 100;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public OverloadPolicy getOverload() {
+            return overload;
+        }
+
+        public void setOverload(OverloadPolicy overload) {
+            this.overload = overload;
+        }
+
+        public long getBlockMillis() {
+            return blockMillis;
+        }
+
+        public void setBlockMillis(long blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+    }
+}
@@ -2,22 +2,35 @@ package com.proj.ckitchens.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.proj.ckitchens.common.Clock;
 import com.proj.ckitchens.common.Temperature;
 
 import java.util.UUID;
 
 public class Order {
+    public static final String DEFAULT_KITCHEN = "default";
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
     private final UUID id;
     private final Temperature temp;
     private final String name;
     private final long shelfLife;
     private final double decayRate;
+    private final String kitchenId;
 
-    private long placementTime;
-    private long moveTime;
-    private long lifeAfterMove = Long.MAX_VALUE;
+    //decay on the current shelf, set at placement: value(now) = (expiryDeadline - now) * decaySlope
+    private double life;
+    private long expiryDeadline;
+    private double decaySlope;
     private boolean isMoved = false;
 
+    public Order(UUID id, Temperature temp, String name, long shelfLife, double decayRate) {
+        this(id, temp, name, shelfLife, decayRate, null);
+    }
+
+    /**
+     * @param kitchenId kitchen the order is cooked and delivered by, {@link #DEFAULT_KITCHEN} if null
+     */
     @JsonCreator
     public Order(
         @JsonProperty("id")
@@ -29,13 +42,17 @@ public class Order {
         @JsonProperty("shelfLife")
         long shelfLife,
         @JsonProperty("decayRate")
-        double decayRate
+        double decayRate,
+        @JsonProperty("kitchenId")
+        String kitchenId
     ) {
         this.id = id;
         this.name = name;
         this.temp = temp;
         this.shelfLife = shelfLife;
         this.decayRate = decayRate;
+        this.kitchenId = kitchenId == null ? DEFAULT_KITCHEN : kitchenId;
+        this.life = shelfLife;
     }
 
     public UUID getId() {
@@ -46,27 +63,77 @@ public class Order {
         return temp;
     }
 
-    public void setPlacementTime() {
-        this.placementTime = System.currentTimeMillis();
+    public String getName() {
+        return name;
     }
 
-    public void setLifeAfterMove() {
-        long timeOnOverflow = (System.currentTimeMillis() - placementTime)/1000;
-        lifeAfterMove = shelfLife - timeOnOverflow - (long)decayRate * timeOnOverflow * 2;
-        moveTime = System.currentTimeMillis();
-        isMoved = true;
+    public long getShelfLife() {
+        return shelfLife;
     }
 
-    public double computeRemainingLifeValue(int modifier) {
-        if(!isMoved) {
-            long orderAge = (System.currentTimeMillis() - placementTime)/1000;
-            return (shelfLife - orderAge - decayRate * orderAge * modifier)/shelfLife;
-        }
-        if(isMoved) {
-            long ageOnNewShelf = (System.currentTimeMillis() - moveTime)/1000;
-            return (lifeAfterMove - ageOnNewShelf - decayRate * ageOnNewShelf * modifier)/lifeAfterMove;
+    public double getDecayRate() {
+        return decayRate;
+    }
+
+    public String getKitchenId() {
+        return kitchenId;
+    }
+
+    /**
+     * start decaying on a shelf: value is 1 now and reaches 0 after life / (1 + decayRate * modifier) seconds,
+     * life being shelf life, or the life left at the move for an order moved from overflow
+     * @param modifier shelf decay modifier
+     * @param now {@link Clock#nanoTime()}
+     */
+    public void setPlacementTime(int modifier, long now) {
+        double rate = 1 + decayRate * modifier;
+        if (life <= 0) {
+            //no life left: expired on placement
+            expiryDeadline = now;
+            decaySlope = rate / NANOS_PER_SECOND;
+        } else {
+            expiryDeadline = now + (long) (life / rate * NANOS_PER_SECOND);
+            decaySlope = rate / (life * NANOS_PER_SECOND);
         }
-        return Long.MAX_VALUE;
+    }
+
+    /**
+     * called when moving from overflow: the life left becomes the life on the next shelf, so value starts again at 1
+     * @param now {@link Clock#nanoTime()}
+     */
+    public void setLifeAfterMove(long now) {
+        life = computeRemainingLifeValue(now) * Math.max(life, 0);
+        isMoved = true;
+    }
+
+    /**
+     * @param now {@link Clock#nanoTime()}
+     * @return remaining value on the current shelf, 1 at placement, 0 at expiry, negative after
+     */
+    public double computeRemainingLifeValue(long now) {
+        return (expiryDeadline - now) * decaySlope;
+    }
+
+    /**
+     * @param now {@link Clock#nanoTime()}
+     * @return true if value on the current shelf reached 0
+     */
+    public boolean isExpired(long now) {
+        return now >= expiryDeadline;
+    }
+
+    /**
+     * @return {@link Clock#nanoTime()} at which value on the current shelf reaches 0
+     */
+    public long getExpiryDeadline() {
+        return expiryDeadline;
+    }
+
+    /**
+     * @return value lost per nanosecond on the current shelf
+     */
+    public double getDecaySlope() {
+        return decaySlope;
     }
 
     public boolean isMoved() {
@@ -1,63 +1,100 @@
 package com.proj.ckitchens.model;
 
-import com.proj.ckitchens.common.DoublyLinkedNode;
+import com.proj.ckitchens.common.DeadlineHeap;
+import com.proj.ckitchens.common.KineticMinHeap;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.common.UuidSlotIndex;
 
-import java.util.UUID;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.concurrent.locks.Lock;
 
+/**
+ * orders of each temperature are chained in placement (FIFO) order.
+ * The chains are intrusive: previous/next are int arrays indexed by cell position,
+ * head/tail are cell positions per temperature, {@link #NONE} marks the end of a chain.
+ */
 public class Shelf extends ShelfParent {
-    private DoublyLinkedNode hotHead, coldHead, frozenHead;
-    private DoublyLinkedNode hotTail, coldTail, frozenTail;
+    public static final int NONE = -1;
 
-    private final Map<UUID, DoublyLinkedNode> locations;
+    private final int[] heads = new int[Temperature.values().length];
+    private final int[] tails = new int[Temperature.values().length];
+    private final int[] previous;
+    private final int[] next;
+
+    private final UuidSlotIndex locations;
+    private final DeadlineHeap expiries;
+    //allocated on first use, which only the overflow shelf makes; guarded by the shelf lock
+    private KineticMinHeap values;
 
     public Shelf(Lock lock, int capacity, String name) {
         super(lock, capacity, name);
-        locations = new HashMap<>();
+        locations = new UuidSlotIndex(capacity);
+        expiries = new DeadlineHeap(capacity);
+        previous = new int[capacity];
+        next = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            previous[i] = NONE;
+            next[i] = NONE;
+        }
+        for (int t = 0; t < heads.length; t++) {
+            heads[t] = NONE;
+            tails[t] = NONE;
+        }
     }
 
-    public Map<UUID, DoublyLinkedNode> getLocations() {
+    /**
+     * @return order id to cell position
+     */
+    public UuidSlotIndex getLocations() {
         return locations;
     }
 
-    public DoublyLinkedNode getHotHead(){
-        return hotHead;
-    }
-
-    public DoublyLinkedNode getHotTail() {
-        return hotTail;
-    }
-
-    public void setHotHeadTail(DoublyLinkedNode h, DoublyLinkedNode t) {
-        hotHead = h;
-        hotTail = t;
+    /**
+     * @return cell positions ordered by the instant their order's value reaches 0
+     */
+    public DeadlineHeap getExpiries() {
+        return expiries;
     }
 
-    public DoublyLinkedNode getColdHead() {
-        return coldHead;
+    /**
+     * @return cell positions ordered by remaining value; only maintained, and only allocated, on the overflow shelf
+     */
+    public KineticMinHeap getValues() {
+        if (values == null) values = new KineticMinHeap(getCapacity());
+        return values;
     }
 
-    public DoublyLinkedNode getColdTail(){
-        return coldTail;
+    /**
+     * @param temp
+     * @return position of the oldest order of the temperature, {@link #NONE} if there is none
+     */
+    public int getHead(Temperature temp) {
+        return heads[temp.ordinal()];
     }
 
-    public void setColdHeadTail(DoublyLinkedNode h, DoublyLinkedNode t) {
-        coldHead = h;
-        coldTail = t;
+    /**
+     * @param temp
+     * @return position of the newest order of the temperature, {@link #NONE} if there is none
+     */
+    public int getTail(Temperature temp) {
+        return tails[temp.ordinal()];
     }
 
-    public DoublyLinkedNode getFrozenHead() {
-        return frozenHead;
+    public void setHeadTail(Temperature temp, int h, int t) {
+        heads[temp.ordinal()] = h;
+        tails[temp.ordinal()] = t;
     }
 
-    public DoublyLinkedNode getFrozenTail() {
-        return frozenTail;
+    /**
+     * @return previous cell position in the chain, indexed by cell position
+     */
+    public int[] getPrevious() {
+        return previous;
     }
 
-    public void setFrozenHeadTail(DoublyLinkedNode h, DoublyLinkedNode t) {
-        frozenHead = h;
-        frozenTail = t;
+    /**
+     * @return next cell position in the chain, indexed by cell position
+     */
+    public int[] getNext() {
+        return next;
     }
 }
@@ -0,0 +1,89 @@
+package com.proj.ckitchens.model;
+
+import com.proj.ckitchens.common.ShardRouting;
+import com.proj.ckitchens.common.Temperature;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * shelves (shards) holding the orders of one temperature
+ * each shard has its own lock, so placements and deliveries on different shards don't contend
+ */
+public class ShelfGroup {
+    private final Temperature temp;
+    private final ShardRouting routing;
+    private final Shelf[] shards;
+
+    public ShelfGroup(Temperature temp, ShardRouting routing, Shelf... shards) {
+        if (shards.length == 0) throw new IllegalArgumentException("a shelf group needs at least one shelf");
+        this.temp = temp;
+        this.routing = routing;
+        this.shards = shards;
+    }
+
+    /**
+     * split capacity evenly over shardCount shelves, each with its own fair lock
+     * a single shelf is named after the temperature, shards are named TEMP-i
+     * @param temp
+     * @param capacity total capacity of the temperature
+     * @param shardCount
+     * @param routing
+     * @return
+     */
+    public static ShelfGroup create(Temperature temp, int capacity, int shardCount, ShardRouting routing) {
+        if (capacity < 0 || shardCount < 1) {
+            throw new IllegalArgumentException("invalid " + temp + " shelf configuration - capacity: " + capacity + ", shards: " + shardCount);
+        }
+        Shelf[] shards = new Shelf[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int shardCapacity = capacity / shardCount + (i < capacity % shardCount ? 1 : 0);
+            String name = shardCount == 1 ? temp.name() : temp.name() + "-" + i;
+            shards[i] = new Shelf(new ReentrantLock(true), shardCapacity, name);
+        }
+        return new ShelfGroup(temp, routing, shards);
+    }
+
+    /**
+     * @param order
+     * @return index of the shard to try first when placing the order
+     */
+    public int route(Order order) {
+        if (shards.length == 1) return 0;
+        if (routing == ShardRouting.HASH) return home(order);
+        int best = 0;
+        int mostFree = -1;
+        for (int i = 0; i < shards.length; i++) {
+            int free = shards[i].getAvailableCells().size();
+            if (free > mostFree) {
+                mostFree = free;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param order
+     * @return index of the shard to look at first for the order
+     */
+    public int home(Order order) {
+        if (shards.length == 1 || routing != ShardRouting.HASH) return 0;
+        return Math.floorMod(order.getId().hashCode(), shards.length);
+    }
+
+    public Shelf getShard(int i) {
+        return shards[i];
+    }
+
+    public int size() {
+        return shards.length;
+    }
+
+    public Temperature getTemp() {
+        return temp;
+    }
+
+    public ShardRouting getRouting() {
+        return routing;
+    }
+}
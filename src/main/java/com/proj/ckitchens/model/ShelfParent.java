@@ -1,9 +1,7 @@
 package com.proj.ckitchens.model;
 
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.UUID;
+import com.proj.ckitchens.common.SlotAllocator;
+
 import java.util.concurrent.locks.Lock;
 
 public class ShelfParent {
@@ -11,15 +9,13 @@ public class ShelfParent {
     private final int capacity;
     private final Order[] cells;
     private final String name;
-    private final Queue<Integer> availableCells = new LinkedList<>();
+    private final SlotAllocator availableCells;
     public ShelfParent(Lock lock, int capacity, String name) {
         this.lock = lock;
         this.capacity = capacity;
         this.cells = new Order[capacity];
         this.name = name;
-        for (int i = 0; i < capacity; i++) {
-            availableCells.offer(i);
-        }
+        this.availableCells = new SlotAllocator(capacity);
     }
 
     public Lock getLock() {
@@ -28,7 +24,7 @@ public class ShelfParent {
     public Order[] getCells() {
         return cells;
     }
-    public Queue<Integer> getAvailableCells() {
+    public SlotAllocator getAvailableCells() {
         return availableCells;
     }
     public int getCapacity() {
@@ -1,17 +1,16 @@
 package com.proj.ckitchens.model;
 
-import java.util.UUID;
-import java.util.Map;
-import java.util.HashMap;
+import com.proj.ckitchens.common.UuidSlotIndex;
+
 import java.util.concurrent.locks.Lock;
 
 public class TemperatureShelf extends ShelfParent {
-    private final Map<UUID, Integer> locations;
+    private final UuidSlotIndex locations;
     public TemperatureShelf(Lock lock, int capacity, String name) {
         super(lock, capacity, name);
-        locations = new HashMap<>();
+        locations = new UuidSlotIndex(capacity);
     }
-    public Map<UUID, Integer> getLocations() {
+    public UuidSlotIndex getLocations() {
         return locations;
     }
 }
@@ -0,0 +1,183 @@
+package com.proj.ckitchens.sim;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.utils.OrderParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * capacity planning: run the {@link KitchenSimulator} for every combination of shelf capacity, overflow capacity,
+ * courier count and arrival rate
+ * every run builds its own kitchens and is single-threaded, so runs are independent and spread over a
+ * fork-join pool with one worker per core. Results come back in sweep order and are the same for the same settings.
+ */
+public class CapacitySweep {
+    private final SimulationProperties simulation;
+    private final KitchenProperties kitchen;
+    private final List<Order> menu;
+    private List<Integer> shelfCapacities;
+    private List<Integer> overflowCapacities;
+    private List<Integer> couriers;
+    private List<Double> ordersPerSecond;
+
+    /**
+     * every parameter starts as a single value taken from the base settings
+     * @param simulation base simulation settings
+     * @param kitchen base shelf settings; HOT, COLD and FROZEN get the same capacity in a sweep
+     * @param menu
+     */
+    public CapacitySweep(SimulationProperties simulation, KitchenProperties kitchen, List<Order> menu) {
+        this.simulation = simulation;
+        this.kitchen = kitchen;
+        this.menu = menu;
+        this.shelfCapacities = Collections.singletonList(kitchen.getHot().getCapacity());
+        this.overflowCapacities = Collections.singletonList(kitchen.getOverflow().getCapacity());
+        this.couriers = Collections.singletonList(simulation.getCouriers());
+        this.ordersPerSecond = Collections.singletonList(simulation.getOrdersPerSecond());
+    }
+
+    public void setShelfCapacities(List<Integer> shelfCapacities) {
+        this.shelfCapacities = shelfCapacities;
+    }
+
+    public void setOverflowCapacities(List<Integer> overflowCapacities) {
+        this.overflowCapacities = overflowCapacities;
+    }
+
+    public void setCouriers(List<Integer> couriers) {
+        this.couriers = couriers;
+    }
+
+    public void setOrdersPerSecond(List<Double> ordersPerSecond) {
+        this.ordersPerSecond = ordersPerSecond;
+    }
+
+    /**
+     * run the sweep on a pool of one worker per core
+     * @return
+     */
+    public List<SweepResult> run() {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return run(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param pool
+     * @return a result per combination, shelf capacity varying slowest and arrival rate fastest
+     */
+    public List<SweepResult> run(ForkJoinPool pool) {
+        List<Callable<SweepResult>> runs = new ArrayList<>();
+        for (int shelfCapacity : shelfCapacities) {
+            for (int overflowCapacity : overflowCapacities) {
+                for (int courierCount : couriers) {
+                    for (double rate : ordersPerSecond) {
+                        runs.add(() -> runPoint(shelfCapacity, overflowCapacity, courierCount, rate));
+                    }
+                }
+            }
+        }
+        List<SweepResult> results = new ArrayList<>(runs.size());
+        try {
+            for (Future<SweepResult> result : pool.invokeAll(runs)) {
+                results.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sweep run failed", e.getCause());
+        }
+        return results;
+    }
+
+    private SweepResult runPoint(int shelfCapacity, int overflowCapacity, int courierCount, double rate) {
+        SimulationProperties point = simulation.copy();
+        point.setCouriers(courierCount);
+        point.setOrdersPerSecond(rate);
+        KitchenProperties shelves = new KitchenProperties();
+        shelves.setIds(kitchen.getIds());
+        shelves.setRouting(kitchen.getRouting());
+        shelves.setLockingMode(kitchen.getLockingMode());
+        shelves.getHot().setCapacity(shelfCapacity);
+        shelves.getHot().setShards(kitchen.getHot().getShards());
+        shelves.getCold().setCapacity(shelfCapacity);
+        shelves.getCold().setShards(kitchen.getCold().getShards());
+        shelves.getFrozen().setCapacity(shelfCapacity);
+        shelves.getFrozen().setShards(kitchen.getFrozen().getShards());
+        shelves.getOverflow().setCapacity(overflowCapacity);
+        SimulationReport report = new KitchenSimulator(point, shelves, menu).run();
+        return new SweepResult(shelfCapacity, overflowCapacity, courierCount, rate, report);
+    }
+
+    /**
+     * one line per result, with a header
+     * @param results
+     * @param out
+     */
+    public static void writeCsv(List<SweepResult> results, PrintStream out) {
+        out.println("shelf_capacity,overflow_capacity,couriers,orders_per_second,orders,delivered,delivered_value,"
+                + "wasted,discarded,discarded_value,waste_rate,placement_ns_mean,placement_ns_max,"
+                + "trips,courier_utilization,courier_queueing_ns_mean,courier_queueing_ns_p99");
+        for (SweepResult result : results) {
+            SimulationReport r = result.getReport();
+            out.println(String.format(Locale.ROOT, "%d,%d,%d,%.3f,%d,%d,%.4f,%d,%d,%.4f,%.6f,%d,%d,%d,%.4f,%d,%d",
+                    result.getShelfCapacity(), result.getOverflowCapacity(), result.getCouriers(),
+                    result.getOrdersPerSecond(), r.getOrders(), r.getDelivered(), r.getDeliveredValue(),
+                    r.getWasted(), r.getDiscarded(), r.getDiscardedValue(), r.getWasteRate(),
+                    r.getPlacementNanosMean(), r.getPlacementNanosMax(),
+                    r.getTrips(), r.getCourierUtilization(), r.getCourierQueueingNanosMean(), r.getCourierQueueingNanosP99()));
+        }
+        out.flush();
+    }
+
+    /**
+     * a JSON array of results; out is left open
+     * @param results
+     * @param out
+     * @throws IOException
+     */
+    public static void writeJson(List<SweepResult> results, OutputStream out) throws IOException {
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(out, results);
+    }
+
+    /**
+     * sweep overflow capacity, couriers and arrival rate around the settings of application.properties
+     * @param args csv or json, order count per run
+     */
+    public static void main(String[] args) throws IOException {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+        CapacitySweep sweep = new CapacitySweep(simulation, KitchenProperties.load("application.properties"),
+                OrderParser.readFromFile("orders.json"));
+        sweep.setOverflowCapacities(List.of(5, 15, 30, 60));
+        sweep.setCouriers(List.of(0, 50, 100, 200));
+        sweep.setOrdersPerSecond(List.of(10d, 20d, 40d));
+        List<SweepResult> results = sweep.run();
+        if (args.length > 0 && args[0].equalsIgnoreCase("json")) {
+            writeJson(results, System.out);
+        } else {
+            writeCsv(results, System.out);
+        }
+    }
+}
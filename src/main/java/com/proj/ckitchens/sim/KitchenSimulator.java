@@ -0,0 +1,170 @@
+package com.proj.ckitchens.sim;
+
+import com.proj.ckitchens.common.VirtualTimeScheduler;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.CleanupService;
+import com.proj.ckitchens.svc.CourierPool;
+import com.proj.ckitchens.svc.Kitchen;
+import com.proj.ckitchens.svc.KitchenRegistry;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventType;
+import com.proj.ckitchens.svc.operations.RemovalStats;
+import com.proj.ckitchens.utils.OrderParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * single-threaded discrete-event simulation of kitchens
+ * order arrivals, cook completions, courier arrivals and returns are events on a {@link VirtualTimeScheduler},
+ * couriers come from a {@link CourierPool} of the configured size;
+ * expirations are the {@link CleanupService} passes on the same scheduler. Each event calls the real
+ * {@link com.proj.ckitchens.svc.ShelfMgmtSystem} placement, move, discard and delivery logic, so a run measures the
+ * shelves as configured, without threads or sleeps. Every run builds its own kitchens.
+ */
+public class KitchenSimulator {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final SimulationProperties simulation;
+    private final KitchenProperties kitchen;
+    private final List<Order> menu;
+
+    /**
+     * @param simulation
+     * @param kitchen shelf settings of every kitchen; orders are spread over kitchen.ids in turn
+     * @param menu orders are copies of the menu items in turn, with new ids
+     */
+    public KitchenSimulator(SimulationProperties simulation, KitchenProperties kitchen, List<Order> menu) {
+        if (menu == null || menu.isEmpty()) throw new IllegalArgumentException("menu must not be empty");
+        if (simulation.getOrdersPerSecond() <= 0) throw new IllegalArgumentException("ordersPerSecond must be positive");
+        if (simulation.getOrdersPerTrip() < 1) throw new IllegalArgumentException("ordersPerTrip must be positive");
+        this.simulation = simulation;
+        this.kitchen = kitchen;
+        this.menu = menu;
+    }
+
+    public SimulationReport run() {
+        long started = System.nanoTime();
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        KitchenRegistry kitchens = KitchenRegistry.create(kitchen, JournalMode.OFF, scheduler);
+        CleanupService cleanupService = new CleanupService(kitchens, scheduler, scheduler);
+        cleanupService.start();
+
+        Run run = new Run(scheduler, kitchens);
+        scheduler.schedule(run::arrive, 0, TimeUnit.NANOSECONDS);
+        scheduler.runAll();
+        cleanupService.signalShutdown();
+
+        long delivered = 0;
+        double deliveredValue = 0;
+        long wasted = 0;
+        long discarded = 0;
+        double discardedValue = 0;
+        for (Kitchen k : kitchens.getKitchens()) {
+            RemovalStats stats = k.getShelfMgmtSystem().getShelfService().getRemovalStats();
+            delivered += stats.getCount(ShelfEventType.DELIVERED);
+            deliveredValue += stats.getValue(ShelfEventType.DELIVERED);
+            wasted += stats.getCount(ShelfEventType.PAST_DUE) + stats.getCount(ShelfEventType.CLEANED);
+            discarded += stats.getCount(ShelfEventType.DISCARDED);
+            discardedValue += Math.max(0, stats.getValue(ShelfEventType.DISCARDED));
+        }
+        return new SimulationReport(run.arrived, delivered, deliveredValue, wasted, discarded, discardedValue,
+                scheduler.nanoTime(), System.nanoTime() - started,
+                run.placed == 0 ? 0 : run.placementNanos / run.placed, run.placementNanosMax, run.trips,
+                run.couriers.getUtilization(), (long) run.couriers.getQueueingDelay().getMean(),
+                run.couriers.getQueueingDelay().getValueAtPercentile(99));
+    }
+
+    /**
+     * state of one run; only touched by the scheduler's thread
+     */
+    private class Run {
+        private final VirtualTimeScheduler scheduler;
+        private final KitchenRegistry kitchens;
+        private final List<String> kitchenIds;
+        private final Random random;
+        private final CourierPool couriers;
+        //trip of the courier on its way to each kitchen, until it arrives or is full
+        private final Map<String, List<Order>> open = new HashMap<>();
+        private long trips;
+        private int arrived;
+        private long placed;
+        private long placementNanos;
+        private long placementNanosMax;
+
+        Run(VirtualTimeScheduler scheduler, KitchenRegistry kitchens) {
+            this.scheduler = scheduler;
+            this.kitchens = kitchens;
+            this.kitchenIds = kitchen.getIds();
+            this.random = new Random(simulation.getSeed());
+            this.couriers = new CourierPool(simulation.getCouriers(), scheduler, scheduler, random,
+                    simulation.getCourierMinSeconds(), simulation.getCourierMaxSeconds());
+        }
+
+        void arrive() {
+            int i = arrived++;
+            Order item = menu.get(i % menu.size());
+            Order order = new Order(new UUID(simulation.getSeed(), i), item.getTemp(), item.getName(),
+                    item.getShelfLife(), item.getDecayRate(), kitchenIds.get(i % kitchenIds.size()));
+            schedule(() -> cooked(order), uniform(simulation.getCookMinSeconds(), simulation.getCookMaxSeconds()));
+            if (arrived < simulation.getOrderCount()) {
+                //exponential gap of a Poisson process
+                schedule(this::arrive, -Math.log(1 - random.nextDouble()) / simulation.getOrdersPerSecond());
+            }
+        }
+
+        void cooked(Order order) {
+            long start = System.nanoTime();
+            kitchens.forOrder(order).getShelfMgmtSystem().placeOrderOnShelf(order);
+            long took = System.nanoTime() - start;
+            placed++;
+            placementNanos += took;
+            placementNanosMax = Math.max(placementNanosMax, took);
+            List<Order> trip = open.get(order.getKitchenId());
+            if (trip != null && trip.size() < simulation.getOrdersPerTrip()) {
+                trip.add(order);
+                return;
+            }
+            List<Order> next = new ArrayList<>();
+            next.add(order);
+            open.put(order.getKitchenId(), next);
+            trips++;
+            couriers.send(() -> pickUp(order.getKitchenId(), next));
+        }
+
+        void pickUp(String kitchenId, List<Order> trip) {
+            open.remove(kitchenId, trip);
+            kitchens.forOrder(trip.get(0)).getShelfMgmtSystem().deliverOrders(trip);
+            couriers.pickedUp();
+        }
+
+        double uniform(double low, double up) {
+            return up <= low ? low : low + random.nextDouble() * (up - low);
+        }
+
+        void schedule(Runnable event, double seconds) {
+            scheduler.schedule(event, (long) (seconds * NANOS_PER_SECOND), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * replay the orders of orders.json with the shelves of application.properties
+     * @param args order count, orders per second, couriers (0 for a courier per order), orders per trip
+     */
+    public static void main(String[] args) {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000);
+        if (args.length > 1) simulation.setOrdersPerSecond(Double.parseDouble(args[1]));
+        if (args.length > 2) simulation.setCouriers(Integer.parseInt(args[2]));
+        if (args.length > 3) simulation.setOrdersPerTrip(Integer.parseInt(args[3]));
+        KitchenSimulator simulator = new KitchenSimulator(simulation,
+                KitchenProperties.load("application.properties"), OrderParser.readFromFile("orders.json"));
+        System.out.println(simulator.run());
+    }
+}
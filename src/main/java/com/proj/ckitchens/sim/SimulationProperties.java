@@ -0,0 +1,114 @@
+package com.proj.ckitchens.sim;
+
+/**
+ * order arrivals, cooking and couriers of a simulated run; times are in seconds
+ * <ul>
+ *     <li>orders arrive as a Poisson process of ordersPerSecond</li>
+ *     <li>cooking takes a uniform time in [cookMinSeconds, cookMaxSeconds], then the order is placed on a shelf
+ *     and a courier is sent for it</li>
+ *     <li>a courier reaches the kitchen after a uniform time in [courierMinSeconds, courierMaxSeconds] and takes
+ *     as long again to drop the order off; couriers is the size of the fleet, 0 for a courier per order</li>
+ *     <li>orders cooked while a courier is on its way to their kitchen join its trip, up to ordersPerTrip</li>
+ * </ul>
+ * the same settings and seed give the same run
+ */
+public class SimulationProperties {
+    private int orderCount = 1000;
+    private double ordersPerSecond = 20;
+    private double cookMinSeconds = 0;
+    private double cookMaxSeconds = 0;
+    private double courierMinSeconds = 2;
+    private double courierMaxSeconds = 6;
+    private int couriers = 0;
+    private int ordersPerTrip = 1;
+    private long seed = 1;
+
+    /**
+     * @return settings with the same values, for a run that changes some of them
+     */
+    public SimulationProperties copy() {
+        SimulationProperties copy = new SimulationProperties();
+        copy.orderCount = orderCount;
+        copy.ordersPerSecond = ordersPerSecond;
+        copy.cookMinSeconds = cookMinSeconds;
+        copy.cookMaxSeconds = cookMaxSeconds;
+        copy.courierMinSeconds = courierMinSeconds;
+        copy.courierMaxSeconds = courierMaxSeconds;
+        copy.couriers = couriers;
+        copy.ordersPerTrip = ordersPerTrip;
+        copy.seed = seed;
+        return copy;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getOrdersPerSecond() {
+        return ordersPerSecond;
+    }
+
+    public void setOrdersPerSecond(double ordersPerSecond) {
+        this.ordersPerSecond = ordersPerSecond;
+    }
+
+    public double getCookMinSeconds() {
+        return cookMinSeconds;
+    }
+
+    public void setCookMinSeconds(double cookMinSeconds) {
+        this.cookMinSeconds = cookMinSeconds;
+    }
+
+    public double getCookMaxSeconds() {
+        return cookMaxSeconds;
+    }
+
+    public void setCookMaxSeconds(double cookMaxSeconds) {
+        this.cookMaxSeconds = cookMaxSeconds;
+    }
+
+    public double getCourierMinSeconds() {
+        return courierMinSeconds;
+    }
+
+    public void setCourierMinSeconds(double courierMinSeconds) {
+        this.courierMinSeconds = courierMinSeconds;
+    }
+
+    public double getCourierMaxSeconds() {
+        return courierMaxSeconds;
+    }
+
+    public void setCourierMaxSeconds(double courierMaxSeconds) {
+        this.courierMaxSeconds = courierMaxSeconds;
+    }
+
+    public int getCouriers() {
+        return couriers;
+    }
+
+    public void setCouriers(int couriers) {
+        this.couriers = couriers;
+    }
+
+    public int getOrdersPerTrip() {
+        return ordersPerTrip;
+    }
+
+    public void setOrdersPerTrip(int ordersPerTrip) {
+        this.ordersPerTrip = ordersPerTrip;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
@@ -0,0 +1,139 @@
+package com.proj.ckitchens.sim;
+
+/**
+ * outcome of a simulated run, summed over all kitchens
+ * <ul>
+ *     <li>delivered: picked up by a courier with value left</li>
+ *     <li>wasted: expired on a shelf, cleaned up or found past due by the courier</li>
+ *     <li>discarded: evicted from a full overflow shelf</li>
+ * </ul>
+ * values are remaining values at removal: delivered value is what reached customers, discarded value is
+ * what was thrown away while still good
+ */
+public class SimulationReport {
+    private final long orders;
+    private final long delivered;
+    private final double deliveredValue;
+    private final long wasted;
+    private final long discarded;
+    private final double discardedValue;
+    private final long simulatedNanos;
+    private final long elapsedNanos;
+    private final long placementNanosMean;
+    private final long placementNanosMax;
+    private final long trips;
+    private final double courierUtilization;
+    private final long courierQueueingNanosMean;
+    private final long courierQueueingNanosP99;
+
+    public SimulationReport(long orders, long delivered, double deliveredValue, long wasted, long discarded,
+                            double discardedValue, long simulatedNanos, long elapsedNanos,
+                            long placementNanosMean, long placementNanosMax, long trips, double courierUtilization,
+                            long courierQueueingNanosMean, long courierQueueingNanosP99) {
+        this.orders = orders;
+        this.delivered = delivered;
+        this.deliveredValue = deliveredValue;
+        this.wasted = wasted;
+        this.discarded = discarded;
+        this.discardedValue = discardedValue;
+        this.simulatedNanos = simulatedNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.placementNanosMean = placementNanosMean;
+        this.placementNanosMax = placementNanosMax;
+        this.trips = trips;
+        this.courierUtilization = courierUtilization;
+        this.courierQueueingNanosMean = courierQueueingNanosMean;
+        this.courierQueueingNanosP99 = courierQueueingNanosP99;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public double getDeliveredValue() {
+        return deliveredValue;
+    }
+
+    public long getWasted() {
+        return wasted;
+    }
+
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    public double getDiscardedValue() {
+        return discardedValue;
+    }
+
+    /**
+     * @return share of orders wasted or discarded
+     */
+    public double getWasteRate() {
+        return orders == 0 ? 0 : (double) (wasted + discarded) / orders;
+    }
+
+    /**
+     * @return virtual time from the first arrival to the last event
+     */
+    public long getSimulatedNanos() {
+        return simulatedNanos;
+    }
+
+    /**
+     * @return wall-clock time the run took
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return mean wall-clock time of placing a cooked order on the shelves, moves and discards included
+     */
+    public long getPlacementNanosMean() {
+        return placementNanosMean;
+    }
+
+    public long getPlacementNanosMax() {
+        return placementNanosMax;
+    }
+
+    /**
+     * @return courier trips, each picking up one or more orders of a kitchen
+     */
+    public long getTrips() {
+        return trips;
+    }
+
+    /**
+     * @return share of courier time spent on trips or at a kitchen, 0 with no limit on couriers
+     */
+    public double getCourierUtilization() {
+        return courierUtilization;
+    }
+
+    /**
+     * @return mean virtual time an order waited for a free courier
+     */
+    public long getCourierQueueingNanosMean() {
+        return courierQueueingNanosMean;
+    }
+
+    public long getCourierQueueingNanosP99() {
+        return courierQueueingNanosP99;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("orders: %d, delivered: %d (value %.2f), wasted: %d, discarded: %d (value %.2f), "
+                        + "waste rate: %.4f, placement: %dns mean %dns max, trips: %d, courier utilization: %.3f, "
+                        + "courier queueing: %.2fs mean %.2fs p99, simulated: %.1fs in %.1fms",
+                orders, delivered, deliveredValue, wasted, discarded, discardedValue, getWasteRate(),
+                placementNanosMean, placementNanosMax, trips, courierUtilization, courierQueueingNanosMean / 1e9,
+                courierQueueingNanosP99 / 1e9, simulatedNanos / 1e9, elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,47 @@
+package com.proj.ckitchens.sim;
+
+/**
+ * one point of a {@link CapacitySweep} and the report of its run
+ */
+public class SweepResult {
+    private final int shelfCapacity;
+    private final int overflowCapacity;
+    private final int couriers;
+    private final double ordersPerSecond;
+    private final SimulationReport report;
+
+    public SweepResult(int shelfCapacity, int overflowCapacity, int couriers, double ordersPerSecond,
+                       SimulationReport report) {
+        this.shelfCapacity = shelfCapacity;
+        this.overflowCapacity = overflowCapacity;
+        this.couriers = couriers;
+        this.ordersPerSecond = ordersPerSecond;
+        this.report = report;
+    }
+
+    /**
+     * @return capacity of each of the HOT, COLD and FROZEN shelves
+     */
+    public int getShelfCapacity() {
+        return shelfCapacity;
+    }
+
+    public int getOverflowCapacity() {
+        return overflowCapacity;
+    }
+
+    /**
+     * @return courier fleet size, 0 for a courier per order
+     */
+    public int getCouriers() {
+        return couriers;
+    }
+
+    public double getOrdersPerSecond() {
+        return ordersPerSecond;
+    }
+
+    public SimulationReport getReport() {
+        return report;
+    }
+}
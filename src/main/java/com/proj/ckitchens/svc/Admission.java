@@ -0,0 +1,23 @@
+package com.proj.ckitchens.svc;
+
+/**
+ * outcome of {@link OrderMgmtService#addOrder}
+ * <ul>
+ *     <li>ACCEPTED: queued for the chefs</li>
+ *     <li>REDIRECTED: the queue was full and another intake took the order</li>
+ *     <li>REJECTED_FULL: the queue was full, or stayed full for the whole wait</li>
+ *     <li>REJECTED_LOW_VALUE: the queue was full of orders worth more</li>
+ *     <li>REJECTED_SHUT_DOWN: intake is shut down</li>
+ * </ul>
+ */
+public enum Admission {
+    ACCEPTED,
+    REDIRECTED,
+    REJECTED_FULL,
+    REJECTED_LOW_VALUE,
+    REJECTED_SHUT_DOWN;
+
+    public boolean isAdmitted() {
+        return this == ACCEPTED || this == REDIRECTED;
+    }
+}
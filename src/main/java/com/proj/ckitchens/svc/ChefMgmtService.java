@@ -1,50 +1,227 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.ChefScheduling;
+import com.proj.ckitchens.common.InFlightCounter;
+import com.proj.ckitchens.common.Temperature;
 import com.proj.ckitchens.model.Order;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * get orders from {@link OrderDispatchService} orders queue through {@link ChefMgmtService#run()}
- * cook orders and place cooked orders on shelf
+ * cook orders and place cooked orders on the shelves of the order's kitchen
+ * chefs are shared by all kitchens of the {@link KitchenRegistry}; cooked orders of a kitchen are placed in batches
+ * per shard through its {@link PlacementBatcher}, so chefs only wait for each other's placements on the same shard.
+ * with {@link ChefScheduling#AFFINE} orders go through {@link TemperatureLanes}.
+ * the loop ends on {@link #signalShutdown()}, or once {@link OrderDispatchService#closeIncoming()} was called and
+ * every incoming order is taken; {@link #awaitCooked} then waits for the orders still cooking to be placed.
  */
 public class ChefMgmtService {
     private final OrderDispatchService orderDispatchService ;
+    private final KitchenRegistry kitchens;
     private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ChefScheduling scheduling;
+    //null with SHARED
+    private final TemperatureLanes lanes;
+    private final ConcurrentHashMap<Kitchen, PlacementBatcher> batchers = new ConcurrentHashMap<>();
+    private final InFlightCounter cooking = new InFlightCounter();
     private volatile boolean shutdownSignal;
+    private volatile Consumer<Order> failureListener;
+    private final LongAdder failures = new LongAdder();
+    private static final int BATCH_SIZE = 64;
     private static final Logger logger = LogManager.getLogger(ChefMgmtService.class);
-    public ChefMgmtService(int numOfChefs, OrderDispatchService dispatchService) {
+    public ChefMgmtService(int numOfChefs, OrderDispatchService dispatchService, KitchenRegistry kitchens) {
+        this(dispatchService, kitchens, Executors.newFixedThreadPool(numOfChefs), numOfChefs, ChefScheduling.AFFINE, true);
+    }
+
+    /**
+     * temperature-affine chefs on the workers of a shared {@link KitchenExecutor}, left running on shutdown
+     * @param dispatchService
+     * @param kitchens
+     * @param executor
+     */
+    public ChefMgmtService(OrderDispatchService dispatchService, KitchenRegistry kitchens, KitchenExecutor executor) {
+        this(dispatchService, kitchens, executor, ChefScheduling.AFFINE);
+    }
+
+    /**
+     * chefs are the workers of a shared {@link KitchenExecutor}, left running on shutdown
+     * @param dispatchService
+     * @param kitchens
+     * @param executor
+     * @param scheduling
+     */
+    public ChefMgmtService(OrderDispatchService dispatchService, KitchenRegistry kitchens, KitchenExecutor executor,
+                           ChefScheduling scheduling) {
+        this(dispatchService, kitchens, executor.getWorkers(), executor.getThreads(), scheduling, false);
+    }
+
+    private ChefMgmtService(OrderDispatchService dispatchService, KitchenRegistry kitchens, ExecutorService executor,
+                            int chefs, ChefScheduling scheduling, boolean ownsExecutor) {
         this.orderDispatchService = dispatchService;
-        executor = Executors.newFixedThreadPool(numOfChefs);
+        this.kitchens = kitchens;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.scheduling = scheduling;
+        this.lanes = scheduling == ChefScheduling.AFFINE
+                ? new TemperatureLanes(Math.max(chefs, Temperature.values().length), executor, this::cookAll)
+                : null;
         this.shutdownSignal = false;
     }
 
     public void run() {
-        while (!shutdownSignal) {
-            Order o = orderDispatchService.getIncomingOrder();
+        List<Order> incoming = new ArrayList<>(BATCH_SIZE);
+        while (!shutdownSignal && !orderDispatchService.isIncomingDrained()) {
+            incoming.clear();
+            orderDispatchService.drainIncomingOrders(incoming, BATCH_SIZE,
+                    OrderDispatchService.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
 
-            if (o != null) {
-                executor.execute(() -> {
-                    cookOrder(o);
-                    logger.log(Level.DEBUG, ChefMgmtService.class.getSimpleName() + " {} order cooked and to be placed on shelf: ", o.getId());
-                    shelfMgmtSystem.placeOrderOnShelf(o);
+            for (Order o : incoming) {
+                cooking.increment();
+                if (lanes != null) {
+                    lanes.submit(o);
+                    continue;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            Kitchen kitchen = kitchenOf(o);
+                            if (kitchen == null || !cook(o)) return;
+                            batcherOf(kitchen).add(o);
+                        } finally {
+                            cooking.decrement();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    //the shared executor is shut down
+                    cooking.decrement();
+                    logger.log(Level.WARN, ChefMgmtService.class.getSimpleName() + " order {} not cooked: chefs are shut down", o.getId());
+                    failed(o);
+                }
 
-                });
+            }
+        }
+        if (ownsExecutor) this.executor.shutdown();
+    }
 
+    /**
+     * cook a batch of orders of one temperature taken by a lane, and place them through the batchers of their kitchens
+     * @param orders
+     */
+    private void cookAll(List<Order> orders) {
+        try {
+            Map<Kitchen, List<Order>> byKitchen = new HashMap<>();
+            for (Order o : orders) {
+                Kitchen kitchen = kitchenOf(o);
+                if (kitchen == null || !cook(o)) continue;
+                byKitchen.computeIfAbsent(kitchen, k -> new ArrayList<>()).add(o);
             }
+            for (Map.Entry<Kitchen, List<Order>> entry : byKitchen.entrySet()) {
+                batcherOf(entry.getKey()).addAll(entry.getValue());
+            }
+        } finally {
+            for (int i = 0; i < orders.size(); i++) {
+                cooking.decrement();
+            }
+        }
+    }
+
+    /**
+     * @param o
+     * @return false if cooking failed; the failure listener is told
+     */
+    private boolean cook(Order o) {
+        try {
+            cookOrder(o);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARN, ChefMgmtService.class.getSimpleName() + " order {} failed to cook", o.getId(), e);
+            failed(o);
+            return false;
         }
-        this.executor.shutdown();
+        logger.log(Level.DEBUG, ChefMgmtService.class.getSimpleName() + " {} order cooked and to be placed on shelf: ", o.getId());
+        return true;
+    }
+
+    private void failed(Order o) {
+        failures.increment();
+        Consumer<Order> listener = failureListener;
+        if (listener != null) listener.accept(o);
+    }
+
+    /**
+     * @return orders that will never be placed because cooking failed
+     */
+    public long getFailed() {
+        return failures.sum();
+    }
+
+    /**
+     * @param listener called with every order that will never be placed, from the chef's thread
+     */
+    public void setFailureListener(Consumer<Order> listener) {
+        this.failureListener = listener;
+    }
+
+    private PlacementBatcher batcherOf(Kitchen kitchen) {
+        return batchers.computeIfAbsent(kitchen, k -> new PlacementBatcher(k.getShelfMgmtSystem()));
+    }
+
+    private Kitchen kitchenOf(Order o) {
+        Kitchen kitchen = kitchens.forOrder(o);
+        if (kitchen == null) {
+            logger.log(Level.WARN, ChefMgmtService.class.getSimpleName() + " order {} is for unknown kitchen {}", o.getId(), o.getKitchenId());
+        }
+        return kitchen;
+    }
+
+    public ChefScheduling getScheduling() {
+        return scheduling;
+    }
+
+    /**
+     * @return orders cooked by a chef of another temperature, 0 with SHARED
+     */
+    public long getStolen() {
+        return lanes == null ? 0 : lanes.getStolen();
     }
 
     public void cookOrder(Order order) {
 
     }
 
+    /**
+     * wait for the orders handed to chefs to be placed on shelves
+     * called after {@link #run()} returned
+     * @param timeout
+     * @param unit
+     * @return true if none is left cooking
+     * @throws InterruptedException
+     */
+    public boolean awaitCooked(long timeout, TimeUnit unit) throws InterruptedException {
+        return cooking.awaitZero(timeout, unit);
+    }
+
+    /**
+     * @return orders handed to chefs and not yet placed
+     */
+    public long getCooking() {
+        return cooking.get();
+    }
+
     public void signalShutdown() {
         this.shutdownSignal = true;
     }
@@ -1,34 +1,113 @@
 package com.proj.ckitchens.svc;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.ExecutorTaskScheduler;
+import com.proj.ckitchens.common.TaskScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
 
 /**
- * periodically clean up orders from shelves when food value reaches 0 or becomes negative
+ * clean up orders from shelves when food value reaches 0 or becomes negative
+ * a cleanup pass is scheduled at the earliest expiry time on any shelf of any kitchen; a placement that expires
+ * earlier than the scheduled pass brings it forward through {@link ShelfMgmtSystem#setExpiryListener}
+ * kitchens registered after {@link #start()} are cleaned by the passes but don't bring them forward
  */
 public class CleanupService {
-    private final ScheduledExecutorService executor;
+    private final TaskScheduler scheduler;
+    private final Clock clock;
+    private final KitchenRegistry kitchens;
     private volatile boolean shutdownSignal;
-    public CleanupService() {
-        this.executor = Executors.newScheduledThreadPool(2);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private TaskScheduler.ScheduledTask nextPass;
+    private long nextPassAt = Long.MAX_VALUE;
+    private static final long TICK_MILLIS = 1;
+    private static final int WHEEL_SIZE = 512;
+
+    public CleanupService(KitchenRegistry kitchens) {
+        this(kitchens, Clock.SYSTEM, new ExecutorTaskScheduler(1));
+    }
+
+    /**
+     * passes run on the workers of a shared {@link KitchenExecutor}, {@value #TICK_MILLIS}ms late at most
+     * @param kitchens
+     * @param executor
+     */
+    public CleanupService(KitchenRegistry kitchens, KitchenExecutor executor) {
+        this(kitchens, Clock.SYSTEM, executor.newScheduler(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE));
+    }
+
+    /**
+     * @param kitchens
+     * @param clock time source of the kitchens' expiry deadlines
+     * @param scheduler cleanup passes run through it
+     */
+    public CleanupService(KitchenRegistry kitchens, Clock clock, TaskScheduler scheduler) {
+        this.kitchens = kitchens;
+        this.clock = clock;
+        this.scheduler = scheduler;
         this.shutdownSignal = false;
     }
 
+    /**
+     * schedule passes until {@link #signalShutdown()}, which ends it at once
+     */
     public void run() {
-        executor.scheduleWithFixedDelay(()->shelfMgmtSystem.cleanupOrdersEndOfLife(), 30, 10, TimeUnit.SECONDS);
+        start();
         while(!shutdownSignal) {
             try {
-                Thread.sleep(5000);
+                stopped.await();
             } catch (InterruptedException e) {
 
             }
         }
-        executor.shutdown();
+        synchronized (this) {
+            if (nextPass != null) nextPass.cancel();
+        }
+        scheduler.shutdown();
+    }
+
+    /**
+     * listen to placements on every kitchen and schedule the first pass; doesn't block
+     */
+    public void start() {
+        for (Kitchen kitchen : kitchens.getKitchens()) {
+            kitchen.getShelfMgmtSystem().setExpiryListener(this::expireAt);
+        }
+        expireAt(clock.nanoTime());
+    }
+
+    /**
+     * make sure a cleanup pass runs no later than expiryTime
+     * @param expiryTime {@link Clock#nanoTime()}
+     */
+    synchronized void expireAt(long expiryTime) {
+        if (shutdownSignal || (nextPass != null && expiryTime - nextPassAt >= 0)) return;
+        if (nextPass != null) nextPass.cancel();
+        nextPassAt = expiryTime;
+        long delay = Math.max(0, expiryTime - clock.nanoTime());
+        try {
+            nextPass = scheduler.schedule(this::cleanup, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            //shutting down
+        }
+    }
+
+    private void cleanup() {
+        synchronized (this) {
+            nextPass = null;
+            nextPassAt = Long.MAX_VALUE;
+        }
+        long next = Long.MAX_VALUE;
+        for (Kitchen kitchen : kitchens.getKitchens()) {
+            next = Math.min(next, kitchen.getShelfMgmtSystem().cleanupOrdersEndOfLife());
+        }
+        if (next != Long.MAX_VALUE) expireAt(next);
     }
 
     public void signalShutdown() {
         this.shutdownSignal = true;
+        stopped.countDown();
     }
 }
@@ -0,0 +1,200 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.Histogram;
+import com.proj.ckitchens.common.TaskScheduler;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a fleet of couriers shared by all kitchens
+ * a courier is busy from the moment it leaves for a kitchen until it is back from the customer: it travels to the
+ * kitchen, waits there until {@link #pickedUp()}, and returns after a second trip. Requests made while every courier
+ * is busy wait in arrival order for the next one back; the time they wait is the queueing delay.
+ * Trips take a uniform random time between the minimum and maximum trip seconds. A pool of size 0 has no limit.
+ * Utilization is the share of courier time spent busy since the pool was created.
+ * On {@link #shutdown()} couriers still on a trip are called back.
+ */
+public class CourierPool {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final int size;
+    private final TaskScheduler scheduler;
+    private final Clock clock;
+    private final Random random;
+    private final double minTripSeconds;
+    private final double maxTripSeconds;
+    private final ArrayDeque<Request> waiting = new ArrayDeque<>();
+    private final Set<Trip> trips = ConcurrentHashMap.newKeySet();
+    private final Histogram queueingDelay = new Histogram();
+    private final long createdAt;
+    private int busy;
+    private long busyNanos;
+    private long lastChange;
+
+    /**
+     * @param size number of couriers, 0 for no limit
+     * @param scheduler trips run on it
+     * @param clock the scheduler's time source
+     * @param random source of trip times
+     * @param minTripSeconds
+     * @param maxTripSeconds
+     */
+    public CourierPool(int size, TaskScheduler scheduler, Clock clock, Random random, double minTripSeconds,
+                       double maxTripSeconds) {
+        if (size < 0) throw new IllegalArgumentException("courier count must not be negative");
+        if (minTripSeconds < 0 || maxTripSeconds < minTripSeconds) throw new IllegalArgumentException("invalid trip times");
+        this.size = size;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.random = random;
+        this.minTripSeconds = minTripSeconds;
+        this.maxTripSeconds = maxTripSeconds;
+        this.createdAt = clock.nanoTime();
+        this.lastChange = createdAt;
+    }
+
+    /**
+     * send the next free courier to a kitchen
+     * @param arrival runs when the courier gets to the kitchen; the courier is busy until {@link #pickedUp()}
+     */
+    public void send(Runnable arrival) {
+        long now = clock.nanoTime();
+        synchronized (this) {
+            if (size > 0 && busy == size) {
+                waiting.add(new Request(arrival, now));
+                return;
+            }
+            changeBusy(now, 1);
+        }
+        queueingDelay.record(0);
+        depart(arrival);
+    }
+
+    /**
+     * a courier leaves the kitchen with an order; it is free again after the return trip
+     */
+    public void pickedUp() {
+        schedule(this::returned);
+    }
+
+    private void returned() {
+        long now = clock.nanoTime();
+        Request next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) changeBusy(now, -1);
+        }
+        if (next != null) {
+            queueingDelay.record(now - next.requestedAt);
+            depart(next.arrival);
+        }
+    }
+
+    private void depart(Runnable arrival) {
+        schedule(arrival);
+    }
+
+    private void schedule(Runnable end) {
+        Trip trip = new Trip(end);
+        trips.add(trip);
+        try {
+            trip.task = scheduler.schedule(trip, trip(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            //shutting down
+            trips.remove(trip);
+        }
+    }
+
+    private long trip() {
+        double seconds = minTripSeconds + random.nextDouble() * (maxTripSeconds - minTripSeconds);
+        return (long) (seconds * NANOS_PER_SECOND);
+    }
+
+    private void changeBusy(long now, int delta) {
+        busyNanos += busy * (now - lastChange);
+        lastChange = now;
+        busy += delta;
+    }
+
+    /**
+     * @return number of couriers, 0 for no limit
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return couriers on a trip or waiting at a kitchen
+     */
+    public synchronized int getBusy() {
+        return busy;
+    }
+
+    /**
+     * @return requests waiting for a free courier
+     */
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * @return request to departure, in nanoseconds, for every courier sent
+     */
+    public Histogram getQueueingDelay() {
+        return queueingDelay;
+    }
+
+    /**
+     * @return busy courier time over total courier time since creation, 0 for a pool without limit
+     */
+    public synchronized double getUtilization() {
+        long now = clock.nanoTime();
+        long elapsed = now - createdAt;
+        if (size == 0 || elapsed <= 0) return 0;
+        return (busyNanos + busy * (now - lastChange)) / ((double) size * elapsed);
+    }
+
+    /**
+     * trips under way are cancelled, new ones are not started
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        for (Trip trip : trips) {
+            TaskScheduler.ScheduledTask task = trip.task;
+            if (trips.remove(trip) && task != null) task.cancel();
+        }
+    }
+
+    /**
+     * a scheduled trip end; runs unless the trip was cancelled
+     */
+    private class Trip implements Runnable {
+        private final Runnable end;
+        private volatile TaskScheduler.ScheduledTask task;
+
+        Trip(Runnable end) {
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            if (trips.remove(this)) end.run();
+        }
+    }
+
+    private static class Request {
+        private final Runnable arrival;
+        private final long requestedAt;
+
+        Request(Runnable arrival, long requestedAt) {
+            this.arrival = arrival;
+            this.requestedAt = requestedAt;
+        }
+    }
+}
@@ -1,51 +1,420 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.DispatchMode;
+import com.proj.ckitchens.common.HashedTimingWheel;
+import com.proj.ckitchens.common.Histogram;
+import com.proj.ckitchens.common.InFlightCounter;
+import com.proj.ckitchens.common.TaskScheduler;
 import com.proj.ckitchens.model.Order;
-import com.proj.ckitchens.utils.RandomInt;
+import com.proj.ckitchens.svc.operations.DeliveryOutcome;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
  * deliver orders through this service {@link DeliveryService#run()}
- * launch threads equal to the number of courier
+ * couriers come from a {@link CourierPool} shared by all kitchens of the {@link KitchenRegistry}; with a bounded
+ * pool orders wait for a free courier. By default courier trips are timers on a {@link HashedTimingWheel} with a
+ * {@value #TICK_MILLIS}ms tick.
+ * a courier is requested for an order unless one already on its way to the order's kitchen has room left: a courier
+ * carries up to ordersPerTrip orders, all taken off the shelves in one {@link ShelfMgmtSystem#deliverOrders} call.
+ * Which orders it picks up is decided by the {@link DispatchMode}; it leaves once it has as many as it came for.
+ * Placements are followed through {@link ShelfMgmtSystem#setPlacementListener} of the kitchens registered at construction.
+ * Food wait (placement to pickup) and courier wait (arrival to pickup) are recorded for every order picked up.
+ * The loop ends on {@link #signalShutdown()}, or once {@link OrderDispatchService#closeDelivery()} was called and
+ * every order for delivery is taken; {@link #awaitPickups} then waits for couriers to pick up the orders dispatched.
  */
 public class DeliveryService {
-    private final ScheduledExecutorService executor;
+    public static final double MIN_TRIP_SECONDS = 2;
+    public static final double MAX_TRIP_SECONDS = 6;
+
+    private final CourierPool couriers;
+    private final int ordersPerTrip;
+    private final Clock clock;
+    private final DispatchMode mode;
     private final OrderDispatchService dispatchService;
+    private final KitchenRegistry kitchens;
+    private final ConcurrentHashMap<Kitchen, Pickups> pickups = new ConcurrentHashMap<>();
+    private final Histogram foodWait = new Histogram();
+    private final Histogram courierWait = new Histogram();
+    private final EnumMap<DeliveryOutcome, LongAdder> outcomes = new EnumMap<>(DeliveryOutcome.class);
+    private final InFlightCounter pending = new InFlightCounter();
     private volatile boolean shutdownSignal;
+    private static final int BATCH_SIZE = 64;
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 1024;
 
     private static final Logger logger = LogManager.getLogger(DeliveryService.class);
-    public DeliveryService(int courierCount, OrderDispatchService dispatchService) {
-        executor = Executors.newScheduledThreadPool(courierCount);
+
+    /**
+     * a fleet of courierCount couriers
+     * @param courierCount
+     * @param dispatchService
+     * @param kitchens
+     */
+    public DeliveryService(int courierCount, OrderDispatchService dispatchService, KitchenRegistry kitchens) {
+        this(dispatchService, kitchens, new CourierPool(courierCount,
+                new HashedTimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, Math.max(1, courierCount)),
+                Clock.SYSTEM, new Random(), MIN_TRIP_SECONDS, MAX_TRIP_SECONDS), 1, Clock.SYSTEM, DispatchMode.MATCHED);
+    }
+
+    /**
+     * courier trips run on the workers of a shared {@link KitchenExecutor}
+     * @param dispatchService
+     * @param kitchens
+     * @param executor
+     * @param mode
+     * @param courierCount fleet size, 0 for no limit
+     * @param ordersPerTrip most orders a courier carries
+     */
+    public DeliveryService(OrderDispatchService dispatchService, KitchenRegistry kitchens, KitchenExecutor executor,
+                           DispatchMode mode, int courierCount, int ordersPerTrip) {
+        this(dispatchService, kitchens, new CourierPool(courierCount,
+                executor.newScheduler(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE), Clock.SYSTEM, new Random(),
+                MIN_TRIP_SECONDS, MAX_TRIP_SECONDS), ordersPerTrip, Clock.SYSTEM, mode);
+    }
+
+    /**
+     * couriers without limit
+     * @param dispatchService
+     * @param kitchens
+     * @param scheduler couriers arrive through it after their travel delay
+     * @param random source of travel delays
+     */
+    public DeliveryService(OrderDispatchService dispatchService, KitchenRegistry kitchens, TaskScheduler scheduler,
+                           Random random) {
+        this(dispatchService, kitchens, scheduler, Clock.SYSTEM, random, DispatchMode.MATCHED);
+    }
+
+    /**
+     * couriers without limit, one order per trip
+     * @param dispatchService
+     * @param kitchens
+     * @param scheduler couriers arrive through it after their travel delay
+     * @param clock time source of the waits, the scheduler's
+     * @param random source of travel delays
+     * @param mode
+     */
+    public DeliveryService(OrderDispatchService dispatchService, KitchenRegistry kitchens, TaskScheduler scheduler,
+                           Clock clock, Random random, DispatchMode mode) {
+        this(dispatchService, kitchens,
+                new CourierPool(0, scheduler, clock, random, MIN_TRIP_SECONDS, MAX_TRIP_SECONDS), 1, clock, mode);
+    }
+
+    /**
+     * @param dispatchService
+     * @param kitchens
+     * @param couriers
+     * @param ordersPerTrip most orders a courier carries
+     * @param clock time source of the waits, the pool's
+     * @param mode
+     */
+    public DeliveryService(OrderDispatchService dispatchService, KitchenRegistry kitchens, CourierPool couriers,
+                           int ordersPerTrip, Clock clock, DispatchMode mode) {
+        if (ordersPerTrip < 1) throw new IllegalArgumentException("a courier carries at least one order");
+        this.couriers = couriers;
+        this.ordersPerTrip = ordersPerTrip;
+        this.clock = clock;
+        this.mode = mode;
         this.dispatchService = dispatchService;
+        this.kitchens = kitchens;
         this.shutdownSignal = false;
+        for (DeliveryOutcome outcome : DeliveryOutcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+        for (Kitchen kitchen : kitchens.getKitchens()) {
+            kitchen.getShelfMgmtSystem().setPlacementListener(o -> placed(kitchen, o));
+        }
     }
 
     public void run() {
-        while (!shutdownSignal) {
-            Order o = dispatchService.getOrderForDelivery();
-            if (o != null) {
-                //10, 30; 10, 40; 60, 80
-                int delay = RandomInt.randomDelay(2, 6);
-                executor.schedule(
-                        () -> {
-                            logger.log(Level.DEBUG, DeliveryService.class.getSimpleName() + "to remove order {} from shelf", o.getId());
-                            shelfMgmtSystem.deliverOrder(o);
-                        }, delay, TimeUnit.SECONDS
-                );
+        List<Order> batch = new ArrayList<>(BATCH_SIZE);
+        while (!shutdownSignal && !dispatchService.isDeliveryDrained()) {
+            batch.clear();
+            dispatchService.drainOrdersForDelivery(batch, BATCH_SIZE,
+                    OrderDispatchService.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            for (Order o : batch) {
+                dispatch(o);
+            }
+        }
+        //a drained service leaves the couriers to finish their pickups
+        if (shutdownSignal) couriers.shutdown();
+    }
+
+    /**
+     * add the order to the trip of a courier on its way to the order's kitchen, or request a courier for it
+     * @param o
+     */
+    public void dispatch(Order o) {
+        Kitchen kitchen = kitchens.forOrder(o);
+        if (kitchen == null) {
+            logger.log(Level.WARN, DeliveryService.class.getSimpleName() + " order {} is for unknown kitchen {}", o.getId(), o.getKitchenId());
+            return;
+        }
+        pending.increment();
+        Pickups p = pickups.computeIfAbsent(kitchen, k -> new Pickups());
+        Trip trip;
+        synchronized (p) {
+            if (p.open != null && p.open.orders.size() < ordersPerTrip) {
+                p.open.orders.add(o);
+                return;
+            }
+            trip = new Trip(o);
+            p.open = trip;
+        }
+        couriers.send(() -> arrived(kitchen, trip));
+    }
+
+    /**
+     * wait for couriers to pick up every order dispatched
+     * called after {@link #run()} returned
+     * @param timeout
+     * @param unit
+     * @return true if none is left
+     * @throws InterruptedException
+     */
+    public boolean awaitPickups(long timeout, TimeUnit unit) throws InterruptedException {
+        return pending.awaitZero(timeout, unit);
+    }
+
+    /**
+     * @return orders dispatched and not yet picked up
+     */
+    public long getPending() {
+        return pending.get();
+    }
+
+    public CourierPool getCouriers() {
+        return couriers;
+    }
+
+    /**
+     * @return placement to pickup, in nanoseconds
+     */
+    public Histogram getFoodWait() {
+        return foodWait;
+    }
+
+    /**
+     * @return courier arrival to pickup, in nanoseconds
+     */
+    public Histogram getCourierWait() {
+        return courierWait;
+    }
+
+    /**
+     * @param outcome
+     * @return pickups with that outcome
+     */
+    public long getCount(DeliveryOutcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+
+    public DispatchMode getMode() {
+        return mode;
+    }
+
+    private void arrived(Kitchen kitchen, Trip trip) {
+        long now = clock.nanoTime();
+        Pickups p = pickups.computeIfAbsent(kitchen, k -> new Pickups());
+        boolean full;
+        synchronized (p) {
+            //orders dispatched from now on need another courier
+            if (p.open == trip) p.open = null;
+            trip.arrivedAt = now;
+            trip.wanted = trip.orders.size();
+            if (mode == DispatchMode.MATCHED) {
+                for (Order order : trip.orders) {
+                    if (p.failed.remove(order.getId())) {
+                        trip.wanted--;
+                        continue;
+                    }
+                    Long placedAt = p.placedAt.remove(order.getId());
+                    if (placedAt == null) {
+                        p.trips.put(order.getId(), trip);
+                    } else {
+                        trip.ready.add(new Cooked(order, placedAt));
+                    }
+                }
+                full = trip.ready.size() == trip.wanted;
+            } else {
+                //orders that will never be cooked owe nothing to whichever courier comes
+                int forgiven = Math.min(p.owed, trip.wanted);
+                p.owed -= forgiven;
+                trip.wanted -= forgiven;
+                full = fill(p, trip);
+            }
+        }
+        if (full) leave(kitchen, trip);
+    }
+
+    /**
+     * an order dispatched for delivery will never be placed, e.g. its chef failed to cook it
+     * the courier sent for it, or with FIFO the first courier waiting, stops waiting for it, and it is no longer
+     * pending. May come before the order is dispatched.
+     * @param o
+     */
+    public void failed(Order o) {
+        Kitchen kitchen = kitchens.forOrder(o);
+        if (kitchen == null) return;
+        pending.decrement();
+        Pickups p = pickups.computeIfAbsent(kitchen, k -> new Pickups());
+        Trip trip;
+        synchronized (p) {
+            if (mode == DispatchMode.MATCHED) {
+                trip = p.trips.remove(o.getId());
+                if (trip == null) {
+                    //its courier is not there yet
+                    p.failed.add(o.getId());
+                    return;
+                }
+            } else {
+                trip = p.couriers.peek();
+                if (trip == null) {
+                    p.owed++;
+                    return;
+                }
             }
+            trip.wanted--;
+            if (trip.ready.size() < trip.wanted) return;
+            if (mode == DispatchMode.FIFO) p.couriers.poll();
         }
-        executor.shutdown();
+        leave(kitchen, trip);
+    }
+
+    private void placed(Kitchen kitchen, Order order) {
+        long now = clock.nanoTime();
+        Pickups p = pickups.computeIfAbsent(kitchen, k -> new Pickups());
+        Trip trip;
+        synchronized (p) {
+            if (mode == DispatchMode.MATCHED) {
+                trip = p.trips.remove(order.getId());
+                if (trip == null) {
+                    p.placedAt.put(order.getId(), now);
+                    return;
+                }
+            } else {
+                trip = p.couriers.peek();
+                if (trip == null) {
+                    p.cooked.add(new Cooked(order, now));
+                    return;
+                }
+            }
+            trip.ready.add(new Cooked(order, now));
+            if (trip.ready.size() < trip.wanted) return;
+            if (mode == DispatchMode.FIFO) p.couriers.poll();
+        }
+        leave(kitchen, trip);
+    }
+
+    /**
+     * FIFO: take the oldest cooked orders until the courier has as many as it came for; queue it otherwise
+     * @param p locked
+     * @param trip
+     * @return true if the courier is ready to pick up
+     */
+    private boolean fill(Pickups p, Trip trip) {
+        Cooked next;
+        while (trip.ready.size() < trip.wanted && (next = p.cooked.poll()) != null) {
+            trip.ready.add(next);
+        }
+        if (trip.ready.size() == trip.wanted) return true;
+        p.couriers.add(trip);
+        return false;
+    }
+
+    /**
+     * pick up the ready orders and head for the customers
+     * orders gone from the shelves count toward the courier's load: every order placed is taken by exactly one
+     * courier, so a FIFO courier waiting for others in their place would wait for an order that never comes
+     * @param kitchen
+     * @param trip
+     */
+    private void leave(Kitchen kitchen, Trip trip) {
+        pickUp(kitchen, trip);
+        couriers.pickedUp();
+    }
+
+    /**
+     * @param kitchen
+     * @param trip its ready orders are picked up and cleared
+     */
+    private void pickUp(Kitchen kitchen, Trip trip) {
+        if (trip.ready.isEmpty()) return;
+        List<Order> orders = new ArrayList<>(trip.ready.size());
+        for (Cooked cooked : trip.ready) {
+            logger.log(Level.DEBUG, DeliveryService.class.getSimpleName() + " to remove order {} from shelf", cooked.order.getId());
+            orders.add(cooked.order);
+        }
+        List<DeliveryOutcome> results = kitchen.getShelfMgmtSystem().deliverOrders(orders);
+        long now = clock.nanoTime();
+        for (int i = 0; i < results.size(); i++) {
+            foodWait.record(now - trip.ready.get(i).placedAt);
+            courierWait.record(now - trip.arrivedAt);
+            outcomes.get(results.get(i)).increment();
+            pending.decrement();
+        }
+        trip.ready.clear();
     }
 
     public void signalShutdown() {
         this.shutdownSignal = true;
     }
+
+    /**
+     * orders and couriers of one kitchen waiting for each other
+     */
+    private static class Pickups {
+        //courier on its way that dispatched orders join, until it arrives or is full
+        private Trip open;
+        //MATCHED: by order id
+        private final HashMap<UUID, Long> placedAt = new HashMap<>();
+        private final HashMap<UUID, Trip> trips = new HashMap<>();
+        //MATCHED: orders that failed before their courier arrived
+        private final HashSet<UUID> failed = new HashSet<>();
+        //FIFO: oldest first
+        private final ArrayDeque<Cooked> cooked = new ArrayDeque<>();
+        private final ArrayDeque<Trip> couriers = new ArrayDeque<>();
+        //FIFO: orders that failed while no courier was waiting
+        private int owed;
+    }
+
+    /**
+     * one courier and the orders it came for; guarded by the kitchen's {@link Pickups} until it leaves
+     */
+    private static class Trip {
+        private final List<Order> orders = new ArrayList<>();
+        private final List<Cooked> ready = new ArrayList<>();
+        private long arrivedAt;
+        //orders to pick up
+        private int wanted;
+
+        Trip(Order first) {
+            orders.add(first);
+        }
+    }
+
+    private static class Cooked {
+        private final Order order;
+        private final long placedAt;
+
+        Cooked(Order order, long placedAt) {
+            this.order = order;
+            this.placedAt = placedAt;
+        }
+    }
 }
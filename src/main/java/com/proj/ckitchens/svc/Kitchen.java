@@ -0,0 +1,52 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.operations.ShelfService;
+
+/**
+ * one kitchen: its own shelves, shelf locks, master lock and shelf event journal
+ * nothing is shared with other kitchens, so kitchens never contend with each other;
+ * chef, courier and cleanup threads are shared and reach a kitchen through {@link KitchenRegistry}
+ */
+public class Kitchen {
+    private final String id;
+    private final ShelfMgmtSystem shelfMgmtSystem;
+
+    public Kitchen(String id, ShelfMgmtSystem shelfMgmtSystem) {
+        this.id = id;
+        this.shelfMgmtSystem = shelfMgmtSystem;
+    }
+
+    /**
+     * @param id
+     * @param properties shelf settings
+     * @param journalMode
+     * @return a kitchen with new shelves
+     */
+    public static Kitchen create(String id, KitchenProperties properties, JournalMode journalMode) {
+        return create(id, properties, journalMode, Clock.SYSTEM);
+    }
+
+    /**
+     * @param id
+     * @param properties shelf settings
+     * @param journalMode
+     * @param clock time source of the shelves and the journal
+     * @return a kitchen with new shelves
+     */
+    public static Kitchen create(String id, KitchenProperties properties, JournalMode journalMode, Clock clock) {
+        ShelfService shelfService = ShelfService.create(properties, new ShelfEventJournal(journalMode, clock), clock);
+        return new Kitchen(id, new ShelfMgmtSystem(shelfService));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ShelfMgmtSystem getShelfMgmtSystem() {
+        return shelfMgmtSystem;
+    }
+}
@@ -0,0 +1,103 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.common.HashedTimingWheel;
+import com.proj.ckitchens.common.TaskScheduler;
+import com.proj.ckitchens.config.KitchenProperties;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the threads of a process, shared by the chef, courier and cleanup services of all its kitchens
+ * tasks of every service run on one worker pool of the configured {@link ExecutionStrategy}; timers are
+ * {@link HashedTimingWheel}s whose due tasks run on the same pool, and service loops get threads of the same kind.
+ * The number of threads doesn't grow with the number of kitchens; with VIRTUAL none of them is a platform thread.
+ * VIRTUAL falls back to WORK_STEALING on a JDK without virtual threads.
+ */
+public class KitchenExecutor {
+    private final ExecutionStrategy strategy;
+    private final int threads;
+    private final ExecutorService workers;
+    private final ThreadFactory loops;
+    private static final Logger logger = LogManager.getLogger(KitchenExecutor.class);
+
+    /**
+     * @param strategy
+     * @param threads size of the worker pool; with VIRTUAL the number of batches timers hand their due tasks in
+     */
+    public KitchenExecutor(ExecutionStrategy strategy, int threads) {
+        if (!strategy.isSupported()) {
+            logger.log(Level.WARN, KitchenExecutor.class.getSimpleName() + " {} is not supported by this JDK, using {}",
+                    strategy, ExecutionStrategy.WORK_STEALING);
+            strategy = ExecutionStrategy.WORK_STEALING;
+        }
+        this.strategy = strategy;
+        this.threads = threads;
+        this.workers = strategy.newExecutor(threads, "kitchen-worker");
+        this.loops = strategy.threadFactory("kitchen-loop");
+    }
+
+    /**
+     * @param properties kitchen.execution and kitchen.threads
+     * @return
+     */
+    public static KitchenExecutor create(KitchenProperties properties) {
+        return new KitchenExecutor(properties.getExecution(), properties.getThreads());
+    }
+
+    /**
+     * @return strategy in use, which differs from the one asked for when it is not supported
+     */
+    public ExecutionStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public ExecutorService getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @param loop long running service loop, such as {@link ChefMgmtService#run()}
+     * @return a thread to start
+     */
+    public Thread newThread(Runnable loop) {
+        return loops.newThread(loop);
+    }
+
+    /**
+     * a timer wheel running its due tasks on the shared workers; shutting it down leaves the workers running
+     * @param tickDuration
+     * @param unit
+     * @param wheelSize
+     * @return
+     */
+    public TaskScheduler newScheduler(long tickDuration, TimeUnit unit, int wheelSize) {
+        return new HashedTimingWheel(tickDuration, unit, wheelSize, workers, threads, loops);
+    }
+
+    /**
+     * tasks already submitted still run, new ones are rejected
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return true if the workers terminated in time
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+}
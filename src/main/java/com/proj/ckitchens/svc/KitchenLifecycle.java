@@ -0,0 +1,149 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.journal.ShelfEventType;
+import com.proj.ckitchens.svc.operations.RemovalStats;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * starts the service loops of a process and stops them in stage order
+ * shutdown closes the intake, lets chefs take and cook every order queued, lets couriers pick up every order
+ * dispatched, then stops cleanup, the shared executor and the journals. Every stage ends as soon as its work is done,
+ * so an idle process stops at once; the drain deadline bounds the whole of it. What is left at the deadline is
+ * abandoned: counted in the {@link ShutdownReport} and logged, never dropped unnoticed. Orders the overload policy
+ * shed, orders no shelf had room for and orders chefs failed to cook are reported on their own, not as abandoned.
+ */
+public class KitchenLifecycle {
+    //loops poll their queue at least this often once signalled
+    private static final long STOP_GRACE_MILLIS = 2 * OrderDispatchService.DEFAULT_TIMEOUT_MILLIS;
+
+    private final OrderMgmtService intake;
+    private final OrderDispatchService dispatchService;
+    private final ChefMgmtService chefs;
+    private final DeliveryService deliveries;
+    private final CleanupService cleanup;
+    private final KitchenRegistry kitchens;
+    private final KitchenExecutor executor;
+    private Thread chefLoop;
+    private Thread deliveryLoop;
+    private Thread cleanupLoop;
+    private static final Logger logger = LogManager.getLogger(KitchenLifecycle.class);
+
+    public KitchenLifecycle(OrderMgmtService intake, OrderDispatchService dispatchService, ChefMgmtService chefs,
+                            DeliveryService deliveries, CleanupService cleanup, KitchenRegistry kitchens,
+                            KitchenExecutor executor) {
+        this.intake = intake;
+        this.dispatchService = dispatchService;
+        this.chefs = chefs;
+        this.deliveries = deliveries;
+        this.cleanup = cleanup;
+        this.kitchens = kitchens;
+        this.executor = executor;
+        //couriers don't wait for orders the chefs fail to cook
+        chefs.setFailureListener(deliveries::failed);
+    }
+
+    /**
+     * start the journals and the chef, delivery and cleanup loops
+     */
+    public void start() {
+        if (chefLoop != null) throw new IllegalStateException("already started");
+        kitchens.startJournals();
+        chefLoop = executor.newThread(chefs::run);
+        deliveryLoop = executor.newThread(deliveries::run);
+        cleanupLoop = executor.newThread(cleanup::run);
+        chefLoop.start();
+        deliveryLoop.start();
+        cleanupLoop.start();
+    }
+
+    /**
+     * drain and stop; returns once every service is stopped
+     * @param timeout drain deadline
+     * @param unit
+     * @return
+     */
+    public ShutdownReport shutdown(long timeout, TimeUnit unit) {
+        if (chefLoop == null) throw new IllegalStateException("not started");
+        long started = System.nanoTime();
+        long deadline = started + unit.toNanos(timeout);
+        boolean drained = false;
+        try {
+            intake.shutdown();
+            dispatchService.closeIncoming();
+            drained = join(chefLoop, deadline) && chefs.awaitCooked(remaining(deadline), TimeUnit.NANOSECONDS);
+            dispatchService.closeDelivery();
+            drained = drained && join(deliveryLoop, deadline)
+                    && deliveries.awaitPickups(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        //whatever is left now is abandoned
+        chefs.signalShutdown();
+        deliveries.signalShutdown();
+        dispatchService.signalShutDown();
+        List<Order> left = dispatchService.removeIncomingOrders();
+        deliveries.getCouriers().shutdown();
+        cleanup.signalShutdown();
+        long grace = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_GRACE_MILLIS);
+        try {
+            join(chefLoop, grace);
+            join(deliveryLoop, grace);
+            join(cleanupLoop, grace);
+            executor.shutdown();
+            executor.awaitTermination(Math.max(remaining(deadline), remaining(grace)), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        kitchens.stopJournals();
+
+        ShutdownReport report = report(left.size(), drained, System.nanoTime() - started);
+        for (Order order : left) {
+            logger.log(Level.DEBUG, KitchenLifecycle.class.getSimpleName() + " order {} abandoned in the orders queue", order.getId());
+        }
+        if (report.getAbandoned() > 0) {
+            logger.log(Level.WARN, KitchenLifecycle.class.getSimpleName() + " {} orders abandoned at shutdown: {} queued, "
+                    + "{} cooking, {} waiting for a courier", report.getAbandoned(), report.getLeftInQueue(),
+                    report.getCooking(), report.getWaitingForCourier());
+        }
+        return report;
+    }
+
+    private ShutdownReport report(long leftInQueue, boolean drained, long drainNanos) {
+        long delivered = 0;
+        long pastDue = 0;
+        long discarded = 0;
+        long cleaned = 0;
+        long thrownAway = 0;
+        for (Kitchen kitchen : kitchens.getKitchens()) {
+            thrownAway += kitchen.getShelfMgmtSystem().getThrownAway();
+            RemovalStats stats = kitchen.getShelfMgmtSystem().getShelfService().getRemovalStats();
+            delivered += stats.getCount(ShelfEventType.DELIVERED);
+            pastDue += stats.getCount(ShelfEventType.PAST_DUE);
+            discarded += stats.getCount(ShelfEventType.DISCARDED);
+            cleaned += stats.getCount(ShelfEventType.CLEANED);
+        }
+        long admitted = intake.getCount(Admission.ACCEPTED);
+        long rejected = 0;
+        for (Admission admission : Admission.values()) {
+            if (!admission.isAdmitted()) rejected += intake.getCount(admission);
+        }
+        return new ShutdownReport(admitted, rejected, delivered, pastDue, discarded, cleaned, intake.getShed(),
+                thrownAway, chefs.getFailed(), leftInQueue, chefs.getCooking(), drained, drainNanos);
+    }
+
+    private static boolean join(Thread thread, long deadline) throws InterruptedException {
+        TimeUnit.NANOSECONDS.timedJoin(thread, remaining(deadline));
+        return !thread.isAlive();
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
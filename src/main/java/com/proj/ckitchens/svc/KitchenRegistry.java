@@ -0,0 +1,83 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.journal.JournalMode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * kitchens of this process by id
+ * orders are routed to a kitchen by {@link Order#getKitchenId()}
+ */
+public class KitchenRegistry {
+    private final ConcurrentHashMap<String, Kitchen> kitchens = new ConcurrentHashMap<>();
+
+    /**
+     * one kitchen per id in kitchen.ids, all with the same shelf settings
+     * @param properties
+     * @param journalMode
+     * @return
+     */
+    public static KitchenRegistry create(KitchenProperties properties, JournalMode journalMode) {
+        return create(properties, journalMode, Clock.SYSTEM);
+    }
+
+    /**
+     * one kitchen per id in kitchen.ids, all with the same shelf settings and the same clock
+     * @param properties
+     * @param journalMode
+     * @param clock
+     * @return
+     */
+    public static KitchenRegistry create(KitchenProperties properties, JournalMode journalMode, Clock clock) {
+        KitchenRegistry registry = new KitchenRegistry();
+        for (String id : properties.getIds()) {
+            registry.register(Kitchen.create(id, properties, journalMode, clock));
+        }
+        return registry;
+    }
+
+    public void register(Kitchen kitchen) {
+        if (kitchens.putIfAbsent(kitchen.getId(), kitchen) != null) {
+            throw new IllegalArgumentException("kitchen " + kitchen.getId() + " is already registered");
+        }
+    }
+
+    /**
+     * @param id
+     * @return null if there is no such kitchen
+     */
+    public Kitchen get(String id) {
+        return kitchens.get(id);
+    }
+
+    /**
+     * @param order
+     * @return kitchen of the order, null if there is no such kitchen
+     */
+    public Kitchen forOrder(Order order) {
+        return kitchens.get(order.getKitchenId());
+    }
+
+    public Collection<Kitchen> getKitchens() {
+        return Collections.unmodifiableCollection(kitchens.values());
+    }
+
+    /**
+     * start rendering shelf events of every kitchen in the background
+     */
+    public void startJournals() {
+        kitchens.values().forEach(k -> k.getShelfMgmtSystem().startJournal());
+    }
+
+    /**
+     * render the events published so far and stop the background writers
+     */
+    public void stopJournals() {
+        kitchens.values().forEach(k -> k.getShelfMgmtSystem().stopJournal());
+    }
+}
@@ -1,11 +1,17 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.Temperature;
 import com.proj.ckitchens.model.Order;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * perform these actions:
@@ -14,72 +20,201 @@ import java.util.concurrent.*;
  *     <li>publish order to delivery queue</li>
  *     <li>get order for delivery from delivery queue</li>
  * </ul>
+ * getters block on the queue until an order arrives, the timeout passes or {@link #signalShutDown()} is called;
+ * shutdown puts a marker on both queues that wakes every blocked consumer, each passing it on to the next.
+ * For a graceful stop {@link #closeIncoming()} and {@link #closeDelivery()} put the marker behind the orders already
+ * queued: consumers still get those, then see the queue drained.
  */
 public class OrderDispatchService {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 100;
+    private static final Order SHUTDOWN = new Order(new UUID(0, 0), Temperature.HOT, "shutdown", 0, 0);
+
     private final LinkedBlockingQueue<Order> deliveryQueue;
     private final LinkedBlockingQueue<Order> orders;
-    private final ExecutorService executor;
     private volatile boolean shutdownSignal;
+    private volatile boolean incomingClosed;
+    private volatile boolean deliveryClosed;
 
     private static final Logger logger = LogManager.getLogger(OrderDispatchService.class);
     public OrderDispatchService(LinkedBlockingQueue<Order> orders, LinkedBlockingQueue<Order> deliveryQueue) {
         this.orders = orders;
         this.deliveryQueue = deliveryQueue;
-        executor = Executors.newFixedThreadPool(2);
     }
 
     /**
      * called by {@link ChefMgmtService} to cook and place the order on shelf
      * publish the order to {@link OrderDispatchService#deliveryQueue}
-     * @return order from {@link OrderDispatchService#orders} queue
+     * waits up to {@link #DEFAULT_TIMEOUT_MILLIS}
+     * @return order from {@link OrderDispatchService#orders} queue, null if there is none
      */
     public Order getIncomingOrder() {
-        Order order = getOrderFromQueue(orders);
+        return getIncomingOrder(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return order from {@link OrderDispatchService#orders} queue, null if none arrived in time or on shutdown
+     */
+    public Order getIncomingOrder(long timeout, TimeUnit unit) {
+        Order order = getOrderFromQueue(orders, timeout, unit);
         if(order != null) moveOrderToDeliveryQueue(order);
         return order;
     }
 
+    /**
+     * take up to max incoming orders at once and publish them to the delivery queue
+     * waits for the first order only
+     * @param batch incoming orders are added to it
+     * @param max
+     * @param timeout
+     * @param unit
+     * @return number of orders added to batch
+     */
+    public int drainIncomingOrders(Collection<? super Order> batch, int max, long timeout, TimeUnit unit) {
+        List<Order> drained = new ArrayList<>();
+        drain(orders, drained, max, timeout, unit);
+        if (drained.isEmpty()) return 0;
+        deliveryQueue.addAll(drained);
+        logger.log(Level.DEBUG, OrderDispatchService.class.getSimpleName() + " {} orders dispatched to delivery queue", drained.size());
+        batch.addAll(drained);
+        return drained.size();
+    }
+
     /**
      * add an order to the delivery queue
      * @param order
      */
     public void moveOrderToDeliveryQueue(Order order) {
-        executor.execute(() ->
-                {
-                    deliveryQueue.add(order);
-                    logger.log(Level.DEBUG, OrderDispatchService.class.getSimpleName() + " order {} dispatched to delivery queue", order.getId());
-                }
-        );
-
+        deliveryQueue.add(order);
+        logger.log(Level.DEBUG, OrderDispatchService.class.getSimpleName() + " order {} dispatched to delivery queue", order.getId());
     }
 
     /**
      * called by {@link DeliveryService}
-     * @return
+     * waits up to {@link #DEFAULT_TIMEOUT_MILLIS}
+     * @return order from the delivery queue, null if there is none
      */
     public Order getOrderForDelivery() {
-        return getOrderFromQueue(deliveryQueue);
+        return getOrderForDelivery(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    private Order getOrderFromQueue(LinkedBlockingQueue<Order> queue) {
-        Future<Order> orderFuture = executor.submit(() -> queue.poll());
+    /**
+     * @param timeout
+     * @param unit
+     * @return order from the delivery queue, null if none arrived in time or on shutdown
+     */
+    public Order getOrderForDelivery(long timeout, TimeUnit unit) {
+        return getOrderFromQueue(deliveryQueue, timeout, unit);
+    }
 
-        Order order;
+    /**
+     * take up to max orders for delivery at once; waits for the first order only
+     * @param batch orders for delivery are added to it
+     * @param max
+     * @param timeout
+     * @param unit
+     * @return number of orders added to batch
+     */
+    public int drainOrdersForDelivery(Collection<? super Order> batch, int max, long timeout, TimeUnit unit) {
+        return drain(deliveryQueue, batch, max, timeout, unit);
+    }
+
+    private Order getOrderFromQueue(LinkedBlockingQueue<Order> queue, long timeout, TimeUnit unit) {
+        if (shutdownSignal) return null;
         try {
-            if(shutdownSignal) {
-                orderFuture.cancel(true);
+            Order order = queue.poll(timeout, unit);
+            if (order == SHUTDOWN) {
+                queue.offer(SHUTDOWN);
                 return null;
             }
-            order = orderFuture.get();
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
+            return order;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return null;
         }
-        return order;
+    }
+
+    private int drain(LinkedBlockingQueue<Order> queue, Collection<? super Order> batch, int max, long timeout, TimeUnit unit) {
+        if (max <= 0) return 0;
+        Order first = getOrderFromQueue(queue, timeout, unit);
+        if (first == null) return 0;
+        List<Order> rest = new ArrayList<>();
+        queue.drainTo(rest, max - 1);
+        //every marker drained is passed on as one
+        if (rest.removeIf(o -> o == SHUTDOWN)) queue.offer(SHUTDOWN);
+        batch.add(first);
+        batch.addAll(rest);
+        return 1 + rest.size();
+    }
+
+    /**
+     * no more orders are coming in; the queued ones are still handed out
+     * called once the intake is shut down
+     */
+    public void closeIncoming() {
+        incomingClosed = true;
+        //a full queue has consumers busy draining it; they find it drained without the marker
+        mark(orders);
+    }
+
+    /**
+     * @return true once closed and every incoming order is taken
+     */
+    public boolean isIncomingDrained() {
+        return incomingClosed && isDrained(orders);
+    }
+
+    /**
+     * no more orders are coming for delivery; the queued ones are still handed out
+     * called once no consumer of incoming orders is left
+     */
+    public void closeDelivery() {
+        deliveryClosed = true;
+        mark(deliveryQueue);
+    }
+
+    /**
+     * @return true once closed and every order for delivery is taken
+     */
+    public boolean isDeliveryDrained() {
+        return deliveryClosed && isDrained(deliveryQueue);
+    }
+
+    /**
+     * @param queue
+     * @return true if nothing but markers is left; stops at the first order, normally the head
+     */
+    private static boolean isDrained(LinkedBlockingQueue<Order> queue) {
+        for (Order o : queue) {
+            if (o != SHUTDOWN) return false;
+        }
+        return true;
+    }
+
+    /**
+     * put the marker on a queue unless it is already there, so closing and shutting down don't stack markers
+     * @param queue
+     */
+    private static void mark(LinkedBlockingQueue<Order> queue) {
+        if (!queue.contains(SHUTDOWN)) queue.offer(SHUTDOWN);
+    }
+
+    /**
+     * take every incoming order no consumer took
+     * @return orders left, in queue order
+     */
+    public List<Order> removeIncomingOrders() {
+        List<Order> left = new ArrayList<>();
+        orders.drainTo(left);
+        left.removeIf(o -> o == SHUTDOWN);
+        if (incomingClosed || shutdownSignal) orders.offer(SHUTDOWN);
+        return left;
     }
 
     public void signalShutDown() {
         this.shutdownSignal = true;
-        this.executor.shutdownNow();
+        mark(orders);
+        mark(deliveryQueue);
     }
 }
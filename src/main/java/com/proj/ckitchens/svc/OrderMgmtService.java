@@ -1,35 +1,260 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.OverloadPolicy;
+import com.proj.ckitchens.config.KitchenProperties;
 import com.proj.ckitchens.model.Order;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * order intake and publish to orders queue
+ * orders are queued on the caller's thread, so the caller learns at once whether an order was taken; when the queue
+ * is full the {@link OverloadPolicy} decides. Queue depth and counts of every {@link Admission} are kept so a load
+ * balancer can back off before latency grows.
+ * The value of a queued order is how long it lasts on its temperature shelf, shelfLife / (1 + decayRate):
+ * the order with the least is the most likely to be wasted anyway. Shedding scans the queue once for its
+ * {@value #SHED_CANDIDATES} lowest orders and sheds from that list until it runs out, so a saturated intake doesn't
+ * scan for every admission; an order is only rejected for its low value after a fresh scan. A shed order was
+ * reported ACCEPTED to its caller, so it is handed to the {@link #setShedListener shed listener}.
  */
 public class OrderMgmtService {
-    private final ExecutorService executor;
+    public static final long DEFAULT_BLOCK_MILLIS = 100;
+    private static final int SHED_CANDIDATES = 16;
+
     private final LinkedBlockingQueue<Order> orders;
+    private final OverloadPolicy policy;
+    private final long blockNanos;
+    private final EnumMap<Admission, LongAdder> admissions = new EnumMap<>(Admission.class);
+    private final LongAdder shed = new LongAdder();
+    private final Object shedLock = new Object();
+    //lowest valued orders queued at the last scan, lowest first; guarded by shedLock
+    private final ArrayDeque<Order> candidates = new ArrayDeque<>();
+    private volatile Consumer<Order> shedListener;
+    private volatile OrderMgmtService redirect;
+    private volatile boolean shutdown;
+    //admissions under way, waited for by shutdown
+    private final AtomicInteger admitting = new AtomicInteger();
     private static final Logger logger = LogManager.getLogger(OrderMgmtService.class);
+
     public OrderMgmtService(LinkedBlockingQueue<Order> oq) {
-        this.executor = Executors.newFixedThreadPool(2);
+        this(oq, OverloadPolicy.BLOCK, DEFAULT_BLOCK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param oq bounded orders queue
+     * @param policy
+     * @param blockTimeout longest wait for room with BLOCK
+     * @param unit
+     */
+    public OrderMgmtService(LinkedBlockingQueue<Order> oq, OverloadPolicy policy, long blockTimeout, TimeUnit unit) {
         this.orders = oq;
+        this.policy = policy;
+        this.blockNanos = unit.toNanos(blockTimeout);
+        for (Admission admission : Admission.values()) {
+            admissions.put(admission, new LongAdder());
+        }
+    }
+
+    /**
+     * the intake of a process, configured by kitchen.intake
+     * @param oq bounded orders queue
+     * @param intake
+     * @return
+     * @throws IllegalArgumentException with REDIRECT, which needs a second intake to send orders to
+     */
+    public static OrderMgmtService create(LinkedBlockingQueue<Order> oq, KitchenProperties.IntakeProperties intake) {
+        if (intake.getOverload() == OverloadPolicy.REDIRECT) {
+            throw new IllegalArgumentException("REDIRECT needs another intake to send orders to; a process has one");
+        }
+        return new OrderMgmtService(oq, intake.getOverload(), intake.getBlockMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param redirect intake taking the orders this one has no room for with REDIRECT; its own policy applies,
+     *                 except that it does not redirect further. It must serve the kitchens of the orders.
+     */
+    public void setRedirect(OrderMgmtService redirect) {
+        this.redirect = redirect;
     }
 
-    public void addOrder(Order o) {
-            executor.execute(() -> {
-                orders.add(o);
-                logger.log(Level.DEBUG, OrderMgmtService.class.getSimpleName() + " order {}  temp: {} placed on queue by order management", o.getId() , o.getTemp());
-            });
+    /**
+     * @param o
+     * @return whether the order was taken, and why not
+     */
+    public Admission addOrder(Order o) {
+        Admission admission = admit(o, true);
+        admissions.get(admission).increment();
+        if (admission == Admission.ACCEPTED) {
+            logger.log(Level.DEBUG, OrderMgmtService.class.getSimpleName() + " order {}  temp: {} placed on queue by order management", o.getId() , o.getTemp());
+        } else if (!admission.isAdmitted()) {
+            logger.log(Level.DEBUG, OrderMgmtService.class.getSimpleName() + " order {} not taken: {}", o.getId(), admission);
+        }
+        return admission;
+    }
+
+    private Admission admit(Order o, boolean mayRedirect) {
+        admitting.incrementAndGet();
+        try {
+            if (shutdown) return Admission.REJECTED_SHUT_DOWN;
+            return offer(o, mayRedirect);
+        } finally {
+            admitting.decrementAndGet();
+        }
+    }
 
+    private Admission offer(Order o, boolean mayRedirect) {
+        if (orders.offer(o)) return Admission.ACCEPTED;
+        switch (policy) {
+            case BLOCK:
+                try {
+                    return orders.offer(o, blockNanos, TimeUnit.NANOSECONDS) ? Admission.ACCEPTED : Admission.REJECTED_FULL;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Admission.REJECTED_FULL;
+                }
+            case SHED_LOWEST_VALUE:
+                return shedFor(o);
+            case REDIRECT:
+                OrderMgmtService other = redirect;
+                if (!mayRedirect || other == null || other == this) return Admission.REJECTED_FULL;
+                Admission admission = other.admit(o, false);
+                other.admissions.get(admission).increment();
+                return admission == Admission.ACCEPTED ? Admission.REDIRECTED : Admission.REJECTED_FULL;
+            default:
+                return Admission.REJECTED_FULL;
         }
+    }
+
+    /**
+     * @param listener called with every queued order dropped for an order worth more, outside the intake's locks,
+     *                 from the thread adding that order
+     */
+    public void setShedListener(Consumer<Order> listener) {
+        this.shedListener = listener;
+    }
 
+    /**
+     * drop queued orders worth less than o until o fits
+     * @param o
+     * @return
+     */
+    private Admission shedFor(Order o) {
+        List<Order> dropped = new ArrayList<>();
+        Admission admission = Admission.ACCEPTED;
+        synchronized (shedLock) {
+            boolean scanned = false;
+            while (!orders.offer(o)) {
+                Order lowest = candidates.peekFirst();
+                if (lowest == null || (!scanned && value(lowest) >= value(o))) {
+                    //orders queued since the last scan may be worth less
+                    findCandidates();
+                    scanned = true;
+                    continue;
+                }
+                if (value(lowest) >= value(o)) {
+                    admission = Admission.REJECTED_LOW_VALUE;
+                    break;
+                }
+                candidates.pollFirst();
+                //false if the chefs took it meanwhile
+                if (orders.remove(lowest)) {
+                    shed.increment();
+                    dropped.add(lowest);
+                    logger.log(Level.DEBUG, OrderMgmtService.class.getSimpleName() + " order {} shed for order {}", lowest.getId(), o.getId());
+                }
+            }
+        }
+        Consumer<Order> listener = shedListener;
+        if (listener != null) dropped.forEach(listener);
+        return admission;
+    }
+
+    /**
+     * refill candidates with the lowest valued queued orders, in one pass over the queue
+     */
+    private void findCandidates() {
+        candidates.clear();
+        //highest first, so the head is the one to give up when a lower order turns up
+        PriorityQueue<Order> lowest = new PriorityQueue<>(SHED_CANDIDATES,
+                (a, b) -> Double.compare(value(b), value(a)));
+        for (Order queued : orders) {
+            if (lowest.size() < SHED_CANDIDATES) {
+                lowest.add(queued);
+            } else if (value(queued) < value(lowest.peek())) {
+                lowest.poll();
+                lowest.add(queued);
+            }
+        }
+        while (!lowest.isEmpty()) {
+            candidates.addFirst(lowest.poll());
+        }
+    }
+
+    private static double value(Order o) {
+        return o.getShelfLife() / (1 + o.getDecayRate());
+    }
+
+    /**
+     * @return orders queued and not yet taken by the chefs
+     */
+    public int getQueueDepth() {
+        return orders.size();
+    }
+
+    public int getCapacity() {
+        return orders.size() + orders.remainingCapacity();
+    }
+
+    /**
+     * @param admission
+     * @return orders offered to this intake with that outcome, including those redirected here
+     */
+    public long getCount(Admission admission) {
+        return admissions.get(admission).sum();
+    }
+
+    /**
+     * @return queued orders dropped for orders worth more
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * @return share of the orders offered so far that were not taken, 0 if none was offered
+     */
+    public double getRejectionRate() {
+        long offered = 0;
+        long rejected = 0;
+        for (Admission admission : Admission.values()) {
+            long count = getCount(admission);
+            offered += count;
+            if (!admission.isAdmitted()) rejected += count;
+        }
+        return offered == 0 ? 0 : (double) rejected / offered;
+    }
+
+    /**
+     * orders added from now on are rejected; queued ones stay for the chefs
+     * returns once the admissions under way are done, within the BLOCK timeout, so no order is queued after it
+     */
     public void shutdown() {
-        this.executor.shutdownNow();
+        this.shutdown = true;
+        while (admitting.get() > 0) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
     }
 }
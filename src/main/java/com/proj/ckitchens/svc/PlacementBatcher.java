@@ -0,0 +1,97 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.ShelfGroup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * collects the orders chefs complete for one kitchen and places them with
+ * {@link ShelfMgmtSystem#placeOrdersOnShelf(java.util.Collection)}, a batch per shard
+ * a cooked order is queued for the shard routing picks for it; every shard has its own placing lock, so placements
+ * on different shelves and shards go on in parallel as they would without batching.
+ * The chef holding a shard's lock places everything queued there, for at most {@value #MAX_ROUNDS} rounds; the other
+ * chefs wait for the lock rather than leave, then find their order placed or place it themselves. No order is left
+ * behind, an add returns once its orders are on the shelves, and no chef places for the others without bound.
+ * Under load many orders share one acquisition of each shelf lock; when idle every batch is a single order.
+ */
+public class PlacementBatcher {
+    private static final int MAX_ROUNDS = 4;
+
+    private final ShelfMgmtSystem shelfMgmtSystem;
+    private final EnumMap<Temperature, Lane[]> lanes = new EnumMap<>(Temperature.class);
+
+    public PlacementBatcher(ShelfMgmtSystem shelfMgmtSystem) {
+        this.shelfMgmtSystem = shelfMgmtSystem;
+        for (Temperature temp : Temperature.values()) {
+            Lane[] shards = new Lane[shelfMgmtSystem.getShelfService().getShelfGroup(temp).size()];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Lane();
+            }
+            lanes.put(temp, shards);
+        }
+    }
+
+    /**
+     * @param order cooked order; placed by this thread, or by the thread placing a batch of its shard at the time
+     */
+    public void add(Order order) {
+        Lane lane = laneOf(order);
+        lane.completed.add(order);
+        lane.drain();
+    }
+
+    /**
+     * @param orders cooked orders; placed by this thread, or by the threads placing a batch of their shard at the time
+     */
+    public void addAll(Collection<Order> orders) {
+        List<Lane> touched = new ArrayList<>();
+        for (Order order : orders) {
+            Lane lane = laneOf(order);
+            lane.completed.add(order);
+            if (!touched.contains(lane)) touched.add(lane);
+        }
+        for (Lane lane : touched) {
+            lane.drain();
+        }
+    }
+
+    private Lane laneOf(Order order) {
+        ShelfGroup group = shelfMgmtSystem.getShelfService().getShelfGroup(order.getTemp());
+        return lanes.get(order.getTemp())[group.route(order)];
+    }
+
+    /**
+     * orders completed for one shard
+     */
+    private class Lane {
+        private final ConcurrentLinkedQueue<Order> completed = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock placing = new ReentrantLock();
+
+        /**
+         * the first round takes every order queued when the lock was acquired, the caller's among them unless an
+         * earlier holder placed it; orders queued later belong to chefs waiting for the lock
+         */
+        void drain() {
+            placing.lock();
+            try {
+                for (int round = 0; round < MAX_ROUNDS && !completed.isEmpty(); round++) {
+                    List<Order> batch = new ArrayList<>();
+                    Order o;
+                    while ((o = completed.poll()) != null) {
+                        batch.add(o);
+                    }
+                    if (!batch.isEmpty()) shelfMgmtSystem.placeOrdersOnShelf(batch);
+                }
+            } finally {
+                placing.unlock();
+            }
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.LockingMode;
 import com.proj.ckitchens.common.Temperature;
 import com.proj.ckitchens.model.Order;
 import com.proj.ckitchens.model.Shelf;
+import com.proj.ckitchens.model.ShelfGroup;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.operations.DeliveryOutcome;
 import com.proj.ckitchens.svc.operations.ShelfService;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * manage movement of orders on shelves
@@ -20,120 +32,228 @@ import java.util.concurrent.locks.ReentrantLock;
  * moving orders between shelves, cleaning up orders
  */
 //@Service
-public class ShelfMgmtSystem implements InitializingBean{
-    private static final Lock hot = new ReentrantLock(true);
-    private static final Lock cold = new ReentrantLock(true);
-    private static final Lock frozen = new ReentrantLock(true);
-    private static final Lock overflow = new ReentrantLock(true);
-    private static final ShelfService shelfServiceInstance = new ShelfService(
-            new Shelf(hot, 10, Temperature.HOT.name()),
-            new Shelf(cold, 10, Temperature.COLD.name()),
-            new Shelf(frozen, 10, Temperature.FROZEN.name()),
-            new Shelf(overflow, 15, "Overflow")
-    );
-    private final Shelf hotShelf;
-    private final Shelf coldShelf;
-    private final Shelf frozenShelf;
+public class ShelfMgmtSystem {
     private final Shelf overflowShelf;
     private final ShelfService shelfService;
-    public static  Lock masterLock = new ReentrantLock(true);
+    private volatile Consumer<Order> placementListener;
+    private final LongAdder thrownAway = new LongAdder();
     private static final Logger logger = LogManager.getLogger(ShelfMgmtSystem.class);
 
-//    public static ShelfMgmtSystem shelfMgmtSystem = ShelfMgmtSystem.get();
-
-    public static ShelfMgmtSystem shelfMgmtSystem = new ShelfMgmtSystem(shelfServiceInstance);
     public ShelfMgmtSystem(ShelfService shelfService) {
         this.shelfService = shelfService;
-        hotShelf = shelfService.getHotShelf();
-        coldShelf = shelfService.getColdShelf();
-        frozenShelf = shelfService.getFrozenShelf();
         overflowShelf = shelfService.getOverflowShelf();
-//        hot = hotShelf.getLock();
-//        cold = coldShelf.getLock();
-//        frozen = frozenShelf.getLock();
-//        overflow = overflowShelf.getLock();
-    }
-
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        shelfMgmtSystem = this;
+        shelfService.getJournal().setSnapshot(this::readContents);
     }
 
-    public static ShelfMgmtSystem get() {
-        return shelfMgmtSystem;
+    public ShelfService getShelfService() {
+        return shelfService;
     }
 
-
     /**
      * entry point for placing order on shelves (which can start the order movement between shelves)
+     * the shard picked by the routing of the order's temperature is tried first, then the other shards, then overflow
      * @param order
      */
     public void placeOrderOnShelf(Order order) {
-        switch (order.getTemp()) {
-            case HOT:
-                if (!shelfService.placeOnShelf(order, hotShelf)) {
-                    placeOrderOnOverflow(order);
-                }
-                break;
-            case COLD:
-                if (!shelfService.placeOnShelf(order, coldShelf)) {
-                    placeOrderOnOverflow(order);
-                }
-                break;
-            case FROZEN:
-                if (!shelfService.placeOnShelf(order, frozenShelf)) {
-                    placeOrderOnOverflow(order);
-                }
+        place(order);
+        placed(order);
+    }
+
+    private void place(Order order) {
+        ShelfGroup group = shelfService.getShelfGroup(order.getTemp());
+        int start = group.route(order);
+        for (int i = 0; i < group.size(); i++) {
+            if (shelfService.placeOnShelf(order, group.getShard((start + i) % group.size()))) return;
+        }
+        placeOrderOnOverflow(order);
+    }
+
+    private void placed(Order order) {
+        Consumer<Order> listener = placementListener;
+        if (listener != null) listener.accept(order);
+    }
+
+    /**
+     * entry point for placing a batch of orders, e.g. all orders chefs completed at the same time
+     * orders are grouped by temperature and by the shard routing picks for them; each shelf lock is taken once per
+     * group, the orders that don't fit are tried on the other shards, then placed on overflow in a single pass.
+     * Only the orders overflow can't take go through {@link #moveOrderFromOverflow(Order)} one at a time.
+     * @param orders
+     */
+    public void placeOrdersOnShelf(Collection<Order> orders) {
+        if (orders.size() == 1) {
+            placeOrderOnShelf(orders.iterator().next());
+            return;
+        }
+        placeAll(orders);
+        for (Order order : orders) {
+            placed(order);
+        }
+    }
+
+    private void placeAll(Collection<Order> orders) {
+        List<Order> spill = new ArrayList<>();
+        for (Temperature temp : Temperature.values()) {
+            ShelfGroup group = shelfService.getShelfGroup(temp);
+            List<List<Order>> byShard = new ArrayList<>(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                byShard.add(new ArrayList<>());
+            }
+            boolean any = false;
+            for (Order order : orders) {
+                if (order.getTemp() != temp) continue;
+                byShard.get(group.route(order)).add(order);
+                any = true;
+            }
+            if (!any) continue;
+            List<Order> left = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                left.addAll(shelfService.placeAllOnShelf(byShard.get(i), group.getShard(i)));
+            }
+            for (int i = 0; group.size() > 1 && i < group.size() && !left.isEmpty(); i++) {
+                left = shelfService.placeAllOnShelf(left, group.getShard(i));
+            }
+            spill.addAll(left);
+        }
+        if (spill.isEmpty()) return;
+
+        Lock overflow = overflowShelf.getLock();
+        overflow.lock();
+        try {
+            for (Order order : shelfService.placeAllOnShelf(spill, overflowShelf)) {
+                moveOrderFromOverflow(order);
+            }
+        } finally {
+            overflow.unlock();
         }
     }
 
     /**
      * entry point for delivering an order
      * called by {@link DeliveryService} to deliver an order
-     * first check if the order is on overflow, then check on a regular shelf
+     * first check if the order is on overflow, then check the shards of its temperature, its home shard first
      * @param order
+     * @return NOT_FOUND if the order is on no shelf, e.g. discarded or cleaned up before the courier came
      */
-    public void deliverOrder(Order order) {
-        if (!shelfService.removeForDelivery(order, overflowShelf)) {
-            switch (order.getTemp()) {
-                case HOT:
-                    shelfService.removeForDelivery(order, hotShelf); //should lock both? if the order is just to be placed; can't be placed on HOT shelf anyway
-                    break;
-                case COLD:
-                    shelfService.removeForDelivery(order, coldShelf);
-                    break;
-                case FROZEN:
-                    shelfService.removeForDelivery(order, frozenShelf);
+    public DeliveryOutcome deliverOrder(Order order) {
+        DeliveryOutcome outcome = shelfService.removeForDelivery(order, overflowShelf);
+        if (outcome != DeliveryOutcome.NOT_FOUND) return outcome;
+        ShelfGroup group = shelfService.getShelfGroup(order.getTemp());
+        int start = group.home(order);
+        for (int i = 0; i < group.size(); i++) {
+            outcome = shelfService.removeForDelivery(order, group.getShard((start + i) % group.size()));
+            if (outcome != DeliveryOutcome.NOT_FOUND) return outcome;
+        }
+        logger.log(Level.DEBUG, ShelfMgmtSystem.class.getSimpleName() + " order {} is on no shelf at pickup", order.getId());
+        return DeliveryOutcome.NOT_FOUND;
+    }
+
+    /**
+     * entry point for delivering the orders a courier takes in one trip
+     * overflow is searched first for all of them, then the shards of each temperature for the orders not found yet;
+     * every shelf is locked at most once, and not at all once every order is found
+     * @param orders
+     * @return outcome of every order, in list order
+     */
+    public List<DeliveryOutcome> deliverOrders(List<Order> orders) {
+        if (orders.size() == 1) return Collections.singletonList(deliverOrder(orders.get(0)));
+        Map<UUID, DeliveryOutcome> outcomes = new HashMap<>();
+        List<Order> left = shelfService.removeAllForDelivery(orders, overflowShelf, outcomes);
+        for (Temperature temp : Temperature.values()) {
+            List<Order> ofTemp = new ArrayList<>();
+            for (Order order : left) {
+                if (order.getTemp() == temp) ofTemp.add(order);
+            }
+            ShelfGroup group = shelfService.getShelfGroup(temp);
+            for (int i = 0; i < group.size() && !ofTemp.isEmpty(); i++) {
+                ofTemp = shelfService.removeAllForDelivery(ofTemp, group.getShard(i), outcomes);
             }
         }
+        List<DeliveryOutcome> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            DeliveryOutcome outcome = outcomes.getOrDefault(order.getId(), DeliveryOutcome.NOT_FOUND);
+            if (outcome == DeliveryOutcome.NOT_FOUND) {
+                logger.log(Level.DEBUG, ShelfMgmtSystem.class.getSimpleName() + " order {} is on no shelf at pickup", order.getId());
+            }
+            result.add(outcome);
+        }
+        return result;
     }
 
     /**
      * clean up orders that reached end of life
-     * called periodically by {@link CleanupService} to discard orders
+     * called by {@link CleanupService} when the earliest expiry time comes due
+     * @return earliest expiry deadline ({@link Clock#nanoTime()}) of the orders left on shelves, Long.MAX_VALUE if shelves are empty
+     */
+    public long cleanupOrdersEndOfLife() {
+        long next = shelfService.cleanup(overflowShelf);
+        for (Temperature temp : Temperature.values()) {
+            ShelfGroup group = shelfService.getShelfGroup(temp);
+            for (int i = 0; i < group.size(); i++) {
+                next = Math.min(next, shelfService.cleanup(group.getShard(i)));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @param listener called with an expiry deadline ({@link Clock#nanoTime()}) whenever a placement makes it a shelf's earliest
+     */
+    public void setExpiryListener(LongConsumer listener) {
+        shelfService.setExpiryListener(listener);
+    }
+
+    /**
+     * @param listener called with every order after its placement, outside the shelf locks, from the placing thread
+     */
+    public void setPlacementListener(Consumer<Order> listener) {
+        this.placementListener = listener;
+    }
+
+    /**
+     * @return orders that found no room on any shelf, not even by discarding from overflow
      */
-    public void cleanupOrdersEndOfLife() {
-        shelfService.cleanup(overflowShelf);
-        shelfService.cleanup(hotShelf);
-        shelfService.cleanup(coldShelf);
-        shelfService.cleanup(frozenShelf);
+    public long getThrownAway() {
+        return thrownAway.sum();
     }
 
     /**
      * readContents on all shelves
-     * masterLock is used to lock all shelves before reading.
-     * @param className
-     * @param triggerEvent
+     * called by the {@link ShelfEventJournal} writer once per batch of events, never on a shelf operation path.
+     * in {@link LockingMode#GLOBAL} masterLock is used to read all shelves consistently; otherwise the dump is
+     * a best-effort snapshot
+     * @param sb
+     */
+    public void readContents(StringBuilder sb) {
+        boolean global = shelfService.getLockingMode() == LockingMode.GLOBAL;
+        Lock masterLock = shelfService.getMasterLock();
+        if (global) masterLock.lock();
+        try {
+            sb.append("=============================").append(System.lineSeparator());
+            shelfService.readContentOnShelf(overflowShelf, sb);
+            for (Temperature temp : Temperature.values()) {
+                ShelfGroup group = shelfService.getShelfGroup(temp);
+                for (int i = 0; i < group.size(); i++) {
+                    shelfService.readContentOnShelf(group.getShard(i), sb);
+                }
+            }
+        } finally {
+            if (global) masterLock.unlock();
+        }
+    }
+
+    /**
+     * start rendering shelf events in the background
+     */
+    public void startJournal() {
+        shelfService.getJournal().start();
+    }
+
+    /**
+     * render the events published so far and stop the background writer
      */
-    public void readContents(String triggerEvent, String className) {
-        masterLock.lock();
-        System.out.println(LocalTime.now()  + " | " + triggerEvent + " [" + className +"] ");
-        System.out.println("=============================");
-        shelfService.readContentOnShelf(overflowShelf);
-        shelfService.readContentOnShelf(hotShelf);
-        shelfService.readContentOnShelf(coldShelf);
-        shelfService.readContentOnShelf(frozenShelf);
-        masterLock.unlock();
+    public void stopJournal() {
+        shelfService.getJournal().shutdown();
     }
 
     /**
@@ -141,6 +261,7 @@ public class ShelfMgmtSystem implements InitializingBean{
      * @param order
      */
     private void placeOrderOnOverflow(Order order) {
+        Lock overflow = overflowShelf.getLock();
         overflow.lock();
         if (!shelfService.placeOnShelf(order, overflowShelf)) {
             logger.log(Level.DEBUG, ShelfMgmtSystem.class.getSimpleName() + " not able to directly place {} on overflow", order.getId());
@@ -152,56 +273,45 @@ public class ShelfMgmtSystem implements InitializingBean{
     /**
      * move an order from overflow to a regular shelf, place the new order on overflow
      * called by {@link ShelfMgmtSystem#placeOrderOnOverflow(Order)} when overflow is full
+     * lock order: overflow is always locked before a HOT/COLD/FROZEN shelf, and at most one temperature shelf
+     * is held at a time, so this never deadlocks with a placement or delivery on a temperature shelf.
+     * A temperature's shards are only locked if overflow has an order of that temperature.
      *
      * @param order
      */
     public void moveOrderFromOverflow(Order order) {
-        try {
-            overflow.lock();
-            hot.lock();
-            if (shelfService.hasOnShelf(Temperature.HOT, overflowShelf) && shelfService.isCellAvailable(hotShelf)) {
-                vacateFromOverflow(order, Temperature.HOT, hotShelf);
-                return;
-            }
-        } finally {
-            hot.unlock();
-            overflow.unlock();
-        }
-
-        try {
-            overflow.lock();
-            cold.lock();
-
-            if (shelfService.hasOnShelf(Temperature.COLD, overflowShelf) && shelfService.isCellAvailable(coldShelf)) {
-                vacateFromOverflow(order, Temperature.COLD, coldShelf);
-                return;
-            }
-
-        } finally {
-            cold.unlock();
-            overflow.unlock();
-        }
-
-        try {
-            overflow.lock();
-            frozen.lock();
-            if (shelfService.hasOnShelf(Temperature.FROZEN, overflowShelf) && shelfService.isCellAvailable(frozenShelf)) {
-                vacateFromOverflow(order, Temperature.FROZEN, frozenShelf);
-                return;
+        Lock overflow = overflowShelf.getLock();
+        for (Temperature temp : Temperature.values()) {
+            ShelfGroup group = shelfService.getShelfGroup(temp);
+            for (int i = 0; i < group.size(); i++) {
+                Shelf shelf = group.getShard(i);
+                overflow.lock();
+                try {
+                    if (!shelfService.hasOnShelf(temp, overflowShelf)) break;
+                    shelf.getLock().lock();
+                    try {
+                        if (shelfService.isCellAvailable(shelf)) {
+                            vacateFromOverflow(order, temp, shelf);
+                            return;
+                        }
+                    } finally {
+                        shelf.getLock().unlock();
+                    }
+                } finally {
+                    overflow.unlock();
+                }
             }
-        } finally {
-            frozen.unlock();
-            overflow.unlock();
         }
 
-        //when an order on overflow can't be moved to another shelf, a random order is discarded
+        //when an order on overflow can't be moved to another shelf, an order chosen by the eviction policy is discarded
         //at this point the overflow shelf is full
         overflow.lock();
-        Order discarded = shelfService.discardRandom(overflowShelf);
+        Order discarded = shelfService.evict(overflowShelf);
         if(discarded != null) {
             shelfService.placeOnShelf(order, overflowShelf);
             logger.log(Level.DEBUG,ShelfMgmtSystem.class.getSimpleName() + " order {} is placed on overflow shelf after discarding an order on overflow", order.getId());
         } else { //only happens if overflow has 0 capacity
+            thrownAway.increment();
             logger.log(Level.WARN, ShelfMgmtSystem.class.getSimpleName() + " order {} is thrown away. REMOVAL - thrown away", order.getId());
         }
         overflow.unlock();
@@ -215,7 +325,7 @@ public class ShelfMgmtSystem implements InitializingBean{
      */
     private void vacateFromOverflow(Order order, Temperature temp, Shelf shelf) {
             Order o = shelfService.removeBasedOnTemperature(temp, overflowShelf);
-            o.setLifeAfterMove();
+            o.setLifeAfterMove(shelfService.getClock().nanoTime());
             shelfService.placeOnShelf(o, shelf);
             shelfService.placeOnShelf(order, overflowShelf);
     }
@@ -0,0 +1,145 @@
+package com.proj.ckitchens.svc;
+
+/**
+ * what became of the orders taken by the intake, at the end of a {@link KitchenLifecycle#shutdown}
+ * <ul>
+ *     <li>completed: delivered, found past due by the courier, discarded from a full overflow shelf or cleaned up</li>
+ *     <li>shed: dropped from the queue by the overload policy for an order worth more</li>
+ *     <li>thrown away: cooked but found no room on any shelf, with an overflow shelf of capacity 0</li>
+ *     <li>failed: a chef failed to cook it</li>
+ *     <li>abandoned: still queued for chefs, cooking or waiting for a courier when the drain deadline passed</li>
+ * </ul>
+ * every admitted order is one of these. The abandoned orders split into those no chef took (leftInQueue), those
+ * still cooking, and the rest, waiting for a courier; all three derive from the same counts, so they add up.
+ */
+public class ShutdownReport {
+    private final long admitted;
+    private final long rejected;
+    private final long delivered;
+    private final long pastDue;
+    private final long discarded;
+    private final long cleaned;
+    private final long shed;
+    private final long thrownAway;
+    private final long failed;
+    private final long leftInQueue;
+    private final long cooking;
+    private final boolean drained;
+    private final long drainNanos;
+
+    public ShutdownReport(long admitted, long rejected, long delivered, long pastDue, long discarded, long cleaned,
+                          long shed, long thrownAway, long failed, long leftInQueue, long cooking, boolean drained,
+                          long drainNanos) {
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.delivered = delivered;
+        this.pastDue = pastDue;
+        this.discarded = discarded;
+        this.cleaned = cleaned;
+        this.shed = shed;
+        this.thrownAway = thrownAway;
+        this.failed = failed;
+        this.leftInQueue = leftInQueue;
+        this.cooking = cooking;
+        this.drained = drained;
+        this.drainNanos = drainNanos;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return orders the intake did not take, during the run or shutdown
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getPastDue() {
+        return pastDue;
+    }
+
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    public long getCleaned() {
+        return cleaned;
+    }
+
+    public long getCompleted() {
+        return delivered + pastDue + discarded + cleaned;
+    }
+
+    /**
+     * @return admitted orders the overload policy dropped from the queue
+     */
+    public long getShed() {
+        return shed;
+    }
+
+    /**
+     * @return cooked orders no shelf had room for
+     */
+    public long getThrownAway() {
+        return thrownAway;
+    }
+
+    /**
+     * @return orders a chef failed to cook
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getAbandoned() {
+        return Math.max(0, admitted - shed - thrownAway - failed - getCompleted());
+    }
+
+    public long getLeftInQueue() {
+        return Math.min(leftInQueue, getAbandoned());
+    }
+
+    /**
+     * @return abandoned orders a chef had taken but not placed
+     */
+    public long getCooking() {
+        return Math.min(cooking, getAbandoned() - getLeftInQueue());
+    }
+
+    /**
+     * @return abandoned orders placed or dispatched but not picked up or removed from the shelves
+     */
+    public long getWaitingForCourier() {
+        return getAbandoned() - getLeftInQueue() - getCooking();
+    }
+
+    /**
+     * @return true if every admitted order was completed before the deadline
+     */
+    public boolean isDrained() {
+        return drained;
+    }
+
+    /**
+     * @return wall-clock time from the start of the shutdown to the last service stopped
+     */
+    public long getDrainNanos() {
+        return drainNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("admitted: %d, rejected: %d, completed: %d (delivered %d, past due %d, discarded %d, "
+                        + "cleaned %d), shed: %d, thrown away: %d, failed: %d, abandoned: %d (%d queued, %d cooking, "
+                        + "%d waiting for a courier), %s in %.1fms",
+                admitted, rejected, getCompleted(), delivered, pastDue, discarded, cleaned, shed, thrownAway, failed,
+                getAbandoned(), getLeftInQueue(), getCooking(), getWaitingForCourier(),
+                drained ? "drained" : "deadline passed", drainNanos / 1e6);
+    }
+}
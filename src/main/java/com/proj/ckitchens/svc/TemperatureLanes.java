@@ -0,0 +1,173 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * chef workers with a home temperature, run as tasks on an executor shared with other services
+ * orders wait in one queue per temperature. Lane i has home temperature i % 3 and takes a batch of its home queue
+ * first; with nothing at home it steals a batch of the temperature with the most orders waiting. An order wakes an
+ * idle lane of its temperature, or any idle lane if they are all busy.
+ * A lane runs one batch per task and submits itself again while there are orders, so it never holds a worker thread
+ * while idle and never keeps timers of the same pool waiting; on a work-stealing pool the resubmitted lane stays on
+ * the worker that ran it. A batch failing to cook is logged and doesn't stop the lane.
+ */
+public class TemperatureLanes {
+    private static final int BATCH_SIZE = 32;
+
+    private final Executor executor;
+    private final Consumer<List<Order>> cook;
+    private final EnumMap<Temperature, ConcurrentLinkedQueue<Order>> queues = new EnumMap<>(Temperature.class);
+    //approximate, to pick the temperature to steal from without walking the queues
+    private final EnumMap<Temperature, AtomicInteger> waiting = new EnumMap<>(Temperature.class);
+    private final EnumMap<Temperature, List<Lane>> homes = new EnumMap<>(Temperature.class);
+    private final List<Lane> lanes = new ArrayList<>();
+    private final LongAdder stolen = new LongAdder();
+    private static final Logger logger = LogManager.getLogger(TemperatureLanes.class);
+
+    /**
+     * @param laneCount at least one lane per temperature
+     * @param executor lanes run on it
+     * @param cook cooks and places a batch of orders of one temperature
+     */
+    public TemperatureLanes(int laneCount, Executor executor, Consumer<List<Order>> cook) {
+        if (laneCount < Temperature.values().length) throw new IllegalArgumentException("at least one lane per temperature is needed");
+        this.executor = executor;
+        this.cook = cook;
+        for (Temperature temp : Temperature.values()) {
+            queues.put(temp, new ConcurrentLinkedQueue<>());
+            waiting.put(temp, new AtomicInteger());
+            homes.put(temp, new ArrayList<>());
+        }
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(Temperature.values()[i % Temperature.values().length]);
+            lanes.add(lane);
+            homes.get(lane.home).add(lane);
+        }
+    }
+
+    /**
+     * queue an order for the lanes of its temperature
+     * @param order
+     * @throws RejectedExecutionException if an idle lane can't be started
+     */
+    public void submit(Order order) {
+        queues.get(order.getTemp()).add(order);
+        waiting.get(order.getTemp()).incrementAndGet();
+        for (Lane lane : homes.get(order.getTemp())) {
+            if (lane.activate()) return;
+        }
+        //the home lanes are busy: an idle lane of another temperature steals it
+        for (Lane lane : lanes) {
+            if (lane.activate()) return;
+        }
+    }
+
+    /**
+     * @return orders cooked by a lane of another temperature
+     */
+    public long getStolen() {
+        return stolen.sum();
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    private int poll(Temperature temp, List<Order> batch) {
+        ConcurrentLinkedQueue<Order> queue = queues.get(temp);
+        Order o;
+        int count = 0;
+        while (count < BATCH_SIZE && (o = queue.poll()) != null) {
+            batch.add(o);
+            count++;
+        }
+        if (count > 0) waiting.get(temp).addAndGet(-count);
+        return count;
+    }
+
+    private Temperature busiest() {
+        Temperature busiest = null;
+        int most = 0;
+        for (Temperature temp : Temperature.values()) {
+            int count = waiting.get(temp).get();
+            if (count > most) {
+                most = count;
+                busiest = temp;
+            }
+        }
+        return busiest;
+    }
+
+    private boolean anyQueued() {
+        for (ConcurrentLinkedQueue<Order> queue : queues.values()) {
+            if (!queue.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private class Lane implements Runnable {
+        private final Temperature home;
+        private final AtomicBoolean active = new AtomicBoolean();
+        private final List<Order> batch = new ArrayList<>(BATCH_SIZE);
+
+        Lane(Temperature home) {
+            this.home = home;
+        }
+
+        boolean activate() {
+            if (active.get() || !active.compareAndSet(false, true)) return false;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                active.set(false);
+                throw e;
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            batch.clear();
+            if (poll(home, batch) == 0) {
+                Temperature other = busiest();
+                if (other != null && poll(other, batch) > 0) stolen.add(batch.size());
+            }
+            boolean idle = batch.isEmpty();
+            if (!idle) {
+                try {
+                    cook.accept(batch);
+                } catch (RuntimeException e) {
+                    logger.log(Level.ERROR, TemperatureLanes.class.getSimpleName() + " lane {} failed to cook {} orders",
+                            home, batch.size(), e);
+                }
+            }
+
+            if (idle || !anyQueued()) {
+                active.set(false);
+                //an order queued after the check above found this lane still active
+                if (!anyQueued() || !active.compareAndSet(false, true)) return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                //shutting down
+                active.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.proj.ckitchens.svc.journal;
+
+/**
+ * how {@link ShelfEventJournal} renders events
+ * <ul>
+ *     <li>FULL: every event, followed by a dump of all shelves once per batch</li>
+ *     <li>DELTA: every event, no shelf dump</li>
+ *     <li>SAMPLED: one event out of every sample rate events</li>
+ *     <li>OFF: events are not recorded</li>
+ * </ul>
+ */
+public enum JournalMode {
+    FULL,
+    DELTA,
+    SAMPLED,
+    OFF
+}
@@ -0,0 +1,305 @@
+package com.proj.ckitchens.svc.journal;
+
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.Shelf;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * bounded journal of shelf events
+ * producers (any thread, usually while holding a shelf lock) write a compact record into a preallocated ring slot
+ * and never block: when the ring is full the event is dropped and counted.
+ * A single background writer renders events in batches and flushes once per batch, according to {@link JournalMode}.
+ */
+public class ShelfEventJournal {
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final Temperature[] TEMPERATURES = Temperature.values();
+    private static final ShelfEventType[] TYPES = ShelfEventType.values();
+
+    private final JournalMode mode;
+    private final int sampleRate;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    //event slots, written by the producer that claimed the slot, published by sequences
+    private final long[] timestamps;
+    private final long[] idMsb;
+    private final long[] idLsb;
+    private final byte[] types;
+    private final byte[] temps;
+    private final int[] positions;
+    private final double[] values;
+    private final Shelf[] shelves;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+
+    private final PrintStream out;
+    private final Clock clock;
+    private final StringBuilder buffer = new StringBuilder(4096);
+    private volatile Consumer<StringBuilder> snapshot = sb -> {};
+    private volatile Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean shutdownSignal;
+    private static final Logger logger = LogManager.getLogger(ShelfEventJournal.class);
+
+    public ShelfEventJournal(JournalMode mode) {
+        this(mode, Clock.SYSTEM);
+    }
+
+    /**
+     * @param mode
+     * @param clock time source of event timestamps
+     */
+    public ShelfEventJournal(JournalMode mode, Clock clock) {
+        this(mode, DEFAULT_CAPACITY, 100, System.out, clock);
+    }
+
+    /**
+     * @param mode
+     * @param capacity ring size, rounded up to a power of 2
+     * @param sampleRate in {@link JournalMode#SAMPLED} one event out of sampleRate is rendered
+     * @param out
+     */
+    public ShelfEventJournal(JournalMode mode, int capacity, int sampleRate, PrintStream out) {
+        this(mode, capacity, sampleRate, out, Clock.SYSTEM);
+    }
+
+    /**
+     * @param mode
+     * @param capacity ring size, rounded up to a power of 2
+     * @param sampleRate in {@link JournalMode#SAMPLED} one event out of sampleRate is rendered
+     * @param out
+     * @param clock time source of event timestamps
+     */
+    public ShelfEventJournal(JournalMode mode, int capacity, int sampleRate, PrintStream out, Clock clock) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mode = mode;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.mask = size - 1;
+        this.out = out;
+        this.clock = clock;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        timestamps = new long[size];
+        idMsb = new long[size];
+        idLsb = new long[size];
+        types = new byte[size];
+        temps = new byte[size];
+        positions = new int[size];
+        values = new double[size];
+        shelves = new Shelf[size];
+    }
+
+    /**
+     * record an event; never blocks
+     * @param type
+     * @param order
+     * @param shelf
+     * @param pos cell position on the shelf
+     * @param value remaining life value at the time of the event
+     * @return false if the event was not recorded (journal off or full)
+     */
+    public boolean publish(ShelfEventType type, Order order, Shelf shelf, int pos, double value) {
+        long seq = claim();
+        if (seq < 0) return false;
+        int slot = (int) seq & mask;
+        UUID id = order.getId();
+        timestamps[slot] = clock.currentTimeMillis();
+        idMsb[slot] = id.getMostSignificantBits();
+        idLsb[slot] = id.getLeastSignificantBits();
+        types[slot] = (byte) type.ordinal();
+        temps[slot] = (byte) order.getTemp().ordinal();
+        positions[slot] = pos;
+        values[slot] = value;
+        shelves[slot] = shelf;
+        commit(seq);
+        return true;
+    }
+
+    /**
+     * record one event for a group of orders handled together; never blocks
+     * @param type
+     * @param shelf
+     * @param count number of orders
+     * @return false if the event was not recorded (journal off or full)
+     */
+    public boolean publishBatch(ShelfEventType type, Shelf shelf, int count) {
+        long seq = claim();
+        if (seq < 0) return false;
+        int slot = (int) seq & mask;
+        timestamps[slot] = clock.currentTimeMillis();
+        types[slot] = (byte) type.ordinal();
+        positions[slot] = count;
+        shelves[slot] = shelf;
+        commit(seq);
+        return true;
+    }
+
+    /**
+     * @return sequence of the claimed slot, -1 if the journal is off or full
+     */
+    private long claim() {
+        if (mode == JournalMode.OFF) return -1;
+        while (true) {
+            long seq = tail.get();
+            long available = sequences.get((int) seq & mask);
+            if (available == seq) {
+                if (tail.compareAndSet(seq, seq + 1)) return seq;
+            } else if (available < seq) {
+                dropped.increment();
+                return -1;
+            }
+        }
+    }
+
+    private void commit(long seq) {
+        //full fence, so the writerParked read below can't be reordered before the publication
+        sequences.set((int) seq & mask, seq + 1);
+        published.increment();
+        if (writerParked) {
+            Thread w = writer;
+            if (w != null) LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * @param snapshot appends the content of all shelves; used once per batch in {@link JournalMode#FULL}
+     */
+    public void setSnapshot(Consumer<StringBuilder> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public synchronized void start() {
+        if (mode == JournalMode.OFF || writer != null) return;
+        shutdownSignal = false;
+        Thread t = new Thread(this::writeLoop, "shelf-journal");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * stop the writer after it has rendered what was published so far
+     */
+    public void shutdown() {
+        Thread t;
+        synchronized (this) {
+            t = writer;
+            if (t == null) return;
+            shutdownSignal = true;
+        }
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            writer = null;
+        }
+    }
+
+    /**
+     * render and flush at most one batch of published events
+     * called by the writer thread; can be called directly when the writer is not started
+     * @return number of events consumed
+     */
+    public synchronized int drain() {
+        int n = 0;
+        buffer.setLength(0);
+        while (n < MAX_BATCH) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) break;
+            render(slot);
+            shelves[slot] = null;
+            sequences.lazySet(slot, head + mask + 1);
+            head++;
+            n++;
+        }
+        if (n > 0) {
+            if (mode == JournalMode.FULL) snapshot.accept(buffer);
+            out.print(buffer);
+            out.flush();
+        }
+        return n;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int n;
+            try {
+                n = drain();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARN, "shelf journal failed to render a batch", e);
+                n = 0;
+            }
+            if (n > 0) continue;
+            if (shutdownSignal) return;
+            writerParked = true;
+            if (sequences.get((int) head & mask) != head + 1 && !shutdownSignal) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+
+    private void render(int slot) {
+        long seq = head;
+        if (mode == JournalMode.SAMPLED && seq % sampleRate != 0) return;
+        rendered.increment();
+        Shelf shelf = shelves[slot];
+        ShelfEventType type = TYPES[types[slot]];
+        buffer.append(LocalTime.ofInstant(Instant.ofEpochMilli(timestamps[slot]), ZoneId.systemDefault()))
+                .append(" | ").append(type.label());
+        if (type == ShelfEventType.BATCH_PLACED) {
+            buffer.append(": ").append(positions[slot]).append(" orders")
+                    .append(" on ").append(shelf == null ? "?" : shelf.getName()).append(" shelf")
+                    .append(System.lineSeparator());
+            return;
+        }
+        buffer.append(": order ").append(new UUID(idMsb[slot], idLsb[slot]))
+                .append(" at ").append(positions[slot])
+                .append(" on ").append(shelf == null ? "?" : shelf.getName()).append(" shelf")
+                .append("; temp: ").append(TEMPERATURES[temps[slot]])
+                .append(", value: ").append(values[slot])
+                .append(System.lineSeparator());
+    }
+
+    public JournalMode getMode() {
+        return mode;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getRendered() {
+        return rendered.sum();
+    }
+}
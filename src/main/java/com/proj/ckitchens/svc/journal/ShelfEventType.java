@@ -0,0 +1,25 @@
+package com.proj.ckitchens.svc.journal;
+
+/**
+ * shelf events published to {@link ShelfEventJournal}
+ */
+public enum ShelfEventType {
+    PLACED("INITIAL placement"),
+    MOVED_IN("MOVE placement"),
+    BATCH_PLACED("BATCH placement"),
+    MOVED_OUT("MOVED"),
+    DISCARDED("REMOVAL - discarded"),
+    DELIVERED("REMOVAL - delivered"),
+    PAST_DUE("REMOVAL - past due"),
+    CLEANED("REMOVAL - cleaned");
+
+    private final String label;
+
+    ShelfEventType(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
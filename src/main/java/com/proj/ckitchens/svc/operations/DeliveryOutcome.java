@@ -0,0 +1,15 @@
+package com.proj.ckitchens.svc.operations;
+
+/**
+ * result of a courier picking up an order
+ * <ul>
+ *     <li>DELIVERED: taken from a shelf with value left</li>
+ *     <li>PAST_DUE: taken from a shelf with no value left, and wasted</li>
+ *     <li>NOT_FOUND: not on any shelf: discarded from overflow, cleaned up or never placed</li>
+ * </ul>
+ */
+public enum DeliveryOutcome {
+    DELIVERED,
+    PAST_DUE,
+    NOT_FOUND
+}
@@ -0,0 +1,37 @@
+package com.proj.ckitchens.svc.operations;
+
+import com.proj.ckitchens.common.EvictionPolicy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * number of evictions and remaining value thrown away by evictions, per {@link EvictionPolicy}
+ * value lost by an eviction is the remaining value of the evicted order, 0 if it had already expired
+ */
+public class EvictionStats {
+    private final Map<EvictionPolicy, LongAdder> evictions = new EnumMap<>(EvictionPolicy.class);
+    private final Map<EvictionPolicy, DoubleAdder> valueLost = new EnumMap<>(EvictionPolicy.class);
+
+    public EvictionStats() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            evictions.put(policy, new LongAdder());
+            valueLost.put(policy, new DoubleAdder());
+        }
+    }
+
+    void record(EvictionPolicy policy, double value) {
+        evictions.get(policy).increment();
+        valueLost.get(policy).add(Math.max(0, value));
+    }
+
+    public long getEvictions(EvictionPolicy policy) {
+        return evictions.get(policy).sum();
+    }
+
+    public double getValueLost(EvictionPolicy policy) {
+        return valueLost.get(policy).sum();
+    }
+}
@@ -0,0 +1,39 @@
+package com.proj.ckitchens.svc.operations;
+
+import com.proj.ckitchens.svc.journal.ShelfEventType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * number of orders taken off the shelves and their remaining value, per removal event:
+ * {@link ShelfEventType#DELIVERED}, {@link ShelfEventType#PAST_DUE}, {@link ShelfEventType#DISCARDED},
+ * {@link ShelfEventType#CLEANED}
+ * value is the remaining value at removal, negative for orders past due
+ */
+public class RemovalStats {
+    private final Map<ShelfEventType, LongAdder> counts = new EnumMap<>(ShelfEventType.class);
+    private final Map<ShelfEventType, DoubleAdder> values = new EnumMap<>(ShelfEventType.class);
+
+    public RemovalStats() {
+        for (ShelfEventType type : ShelfEventType.values()) {
+            counts.put(type, new LongAdder());
+            values.put(type, new DoubleAdder());
+        }
+    }
+
+    void record(ShelfEventType type, double value) {
+        counts.get(type).increment();
+        values.get(type).add(value);
+    }
+
+    public long getCount(ShelfEventType type) {
+        return counts.get(type).sum();
+    }
+
+    public double getValue(ShelfEventType type) {
+        return values.get(type).sum();
+    }
+}
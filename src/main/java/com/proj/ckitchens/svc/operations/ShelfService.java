@@ -1,38 +1,112 @@
 package com.proj.ckitchens.svc.operations;
 
-import com.proj.ckitchens.common.DoublyLinkedNode;
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.EvictionPolicy;
+import com.proj.ckitchens.common.LockingMode;
+import com.proj.ckitchens.common.ShardRouting;
 import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.common.UuidSlotIndex;
+import com.proj.ckitchens.config.KitchenProperties;
 import com.proj.ckitchens.model.Order;
 import com.proj.ckitchens.model.Shelf;
+import com.proj.ckitchens.model.ShelfGroup;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.journal.ShelfEventType;
 import com.proj.ckitchens.utils.DataIntegrityViolation;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Service;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.UUID;
-
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.masterLock;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 /**
  * service on a single shelf
  */
 //@Service
 public class ShelfService {
-    private final Shelf hotShelf;
-    private final Shelf coldShelf;
-    private final Shelf frozenShelf;
+    private final ShelfGroup[] groups = new ShelfGroup[Temperature.values().length];
     private final Shelf overflowShelf;
+    private final LockingMode lockingMode;
+    private final Lock masterLock = new ReentrantLock(true);
+    private final ShelfEventJournal journal;
+    private final Clock clock;
+    private volatile LongConsumer expiryListener;
+    private volatile EvictionPolicy evictionPolicy = EvictionPolicy.LOWEST_VALUE;
+    private final EvictionStats evictionStats = new EvictionStats();
+    private final RemovalStats removalStats = new RemovalStats();
     private static final Logger logger = LogManager.getLogger(ShelfService.class);
+    private static final boolean VALIDATE_STATE = ShelfService.class.desiredAssertionStatus();
     public ShelfService(Shelf hotShelf, Shelf coldShelf, Shelf frozenShelf, Shelf overflowShelf) {
-        this.hotShelf = hotShelf;
-        this.coldShelf = coldShelf;
-        this.frozenShelf = frozenShelf;
-        this.overflowShelf = overflowShelf;;
+        this(hotShelf, coldShelf, frozenShelf, overflowShelf, LockingMode.GLOBAL);
+    }
+
+    public ShelfService(Shelf hotShelf, Shelf coldShelf, Shelf frozenShelf, Shelf overflowShelf, LockingMode lockingMode) {
+        this(hotShelf, coldShelf, frozenShelf, overflowShelf, lockingMode, new ShelfEventJournal(JournalMode.OFF));
+    }
+
+    public ShelfService(Shelf hotShelf, Shelf coldShelf, Shelf frozenShelf, Shelf overflowShelf, LockingMode lockingMode,
+                        ShelfEventJournal journal) {
+        this(new ShelfGroup(Temperature.HOT, ShardRouting.HASH, hotShelf),
+                new ShelfGroup(Temperature.COLD, ShardRouting.HASH, coldShelf),
+                new ShelfGroup(Temperature.FROZEN, ShardRouting.HASH, frozenShelf),
+                overflowShelf, lockingMode, journal);
+    }
+
+    public ShelfService(ShelfGroup hotShelves, ShelfGroup coldShelves, ShelfGroup frozenShelves, Shelf overflowShelf,
+                        LockingMode lockingMode, ShelfEventJournal journal) {
+        this(hotShelves, coldShelves, frozenShelves, overflowShelf, lockingMode, journal, Clock.SYSTEM);
+    }
+
+    /**
+     * @param clock time source of placement, decay and expiry
+     */
+    public ShelfService(ShelfGroup hotShelves, ShelfGroup coldShelves, ShelfGroup frozenShelves, Shelf overflowShelf,
+                        LockingMode lockingMode, ShelfEventJournal journal, Clock clock) {
+        groups[Temperature.HOT.ordinal()] = hotShelves;
+        groups[Temperature.COLD.ordinal()] = coldShelves;
+        groups[Temperature.FROZEN.ordinal()] = frozenShelves;
+        this.overflowShelf = overflowShelf;
+        this.lockingMode = lockingMode;
+        this.journal = journal;
+        this.clock = clock;
+    }
+
+    /**
+     * build shelves from kitchen settings
+     * @param properties
+     * @param journal
+     * @return
+     */
+    public static ShelfService create(KitchenProperties properties, ShelfEventJournal journal) {
+        return create(properties, journal, Clock.SYSTEM);
+    }
+
+    /**
+     * build shelves from kitchen settings
+     * @param properties
+     * @param journal
+     * @param clock
+     * @return
+     */
+    public static ShelfService create(KitchenProperties properties, ShelfEventJournal journal, Clock clock) {
+        ShardRouting routing = properties.getRouting();
+        return new ShelfService(
+                ShelfGroup.create(Temperature.HOT, properties.getHot().getCapacity(), properties.getHot().getShards(), routing),
+                ShelfGroup.create(Temperature.COLD, properties.getCold().getCapacity(), properties.getCold().getShards(), routing),
+                ShelfGroup.create(Temperature.FROZEN, properties.getFrozen().getCapacity(), properties.getFrozen().getShards(), routing),
+                new Shelf(new ReentrantLock(true), properties.getOverflow().getCapacity(), "Overflow"),
+                properties.getLockingMode(),
+                journal,
+                clock);
     }
 
     /**
@@ -44,28 +118,55 @@ public class ShelfService {
      * @return true if order is placed on shelf, false otherwise
      */
     public boolean placeOnShelf(Order order, Shelf shelf) {
+        //a full shelf is rejected without touching its lock
+        if (!shelf.getAvailableCells().hasAvailable()) return false;
         try {
             shelf.getLock().lock();
-            masterLock.lock();
+            lockMaster();
             validateStateMaintained(shelf);
-            if (!shelf.getAvailableCells().isEmpty()) {
-                int freePos = shelf.getAvailableCells().poll();
+            int freePos = shelf.getAvailableCells().claim();
+            if (freePos >= 0) {
                 shelf.getCells()[freePos] = order;
-                DoublyLinkedNode curr = new DoublyLinkedNode(freePos);
-                putOrderOnShelfHelper(order, curr, shelf);
+                putOrderOnShelfHelper(order, freePos, shelf);
                 validateStateMaintained(shelf);
 
-                if(!order.isMoved()) {
-                    order.setPlacementTime();
-                    shelfMgmtSystem.readContents("INITIAL placement: order " + order.getId() + " placed at " + freePos + " on " + shelf.getName() + " shelf", shelf.getClass().getSimpleName());
-                } else {
-                    shelfMgmtSystem.readContents("MOVE placement: order " + order.getId() + " moved to " + freePos + " on " + shelf.getName() + " shelf", shelf.getClass().getSimpleName());
-                }
+                journal.publish(order.isMoved() ? ShelfEventType.MOVED_IN : ShelfEventType.PLACED,
+                        order, shelf, freePos, computeLifeValue(order, shelf));
                 return true;
             }
             return false;
         } finally {
-            masterLock.unlock();
+            unlockMaster();
+            shelf.getLock().unlock();
+        }
+    }
+
+    /**
+     * place orders on shelf, in list order, under one acquisition of the shelf lock
+     * one {@link ShelfEventType#BATCH_PLACED} event is published for the orders placed
+     * @param orders orders of initial placement
+     * @param shelf
+     * @return the orders that did not fit, in list order
+     */
+    public List<Order> placeAllOnShelf(List<Order> orders, Shelf shelf) {
+        if (orders.isEmpty() || !shelf.getAvailableCells().hasAvailable()) return orders;
+        int placed = 0;
+        try {
+            shelf.getLock().lock();
+            lockMaster();
+            validateStateMaintained(shelf);
+            for (; placed < orders.size(); placed++) {
+                int freePos = shelf.getAvailableCells().claim();
+                if (freePos < 0) break;
+                Order order = orders.get(placed);
+                shelf.getCells()[freePos] = order;
+                putOrderOnShelfHelper(order, freePos, shelf);
+            }
+            validateStateMaintained(shelf);
+            if (placed > 0) journal.publishBatch(ShelfEventType.BATCH_PLACED, shelf, placed);
+            return orders.subList(placed, orders.size());
+        } finally {
+            unlockMaster();
             shelf.getLock().unlock();
         }
     }
@@ -82,9 +183,7 @@ public class ShelfService {
         }
         shelf.getLock().lock();
         try {
-            return (temp == Temperature.HOT && shelf.getHotTail() != null)
-                    || (temp == Temperature.COLD && shelf.getColdTail() != null)
-                    || (temp == Temperature.FROZEN && shelf.getFrozenTail() != null);
+            return shelf.getTail(temp) != Shelf.NONE;
         } finally {
             shelf.getLock().unlock();
         }
@@ -92,16 +191,12 @@ public class ShelfService {
 
     /**
      * checks if the shelf has space
+     * lock-free; callers that need the answer to stay true must hold the shelf lock
      * @param shelf
      * @return true if the shelf has space
      */
     public boolean isCellAvailable(Shelf shelf) {
-        shelf.getLock().lock();
-        try {
-            return !shelf.getAvailableCells().isEmpty();
-        } finally {
-            shelf.getLock().unlock();
-        }
+        return shelf.getAvailableCells().hasAvailable();
     }
 
 
@@ -119,155 +214,281 @@ public class ShelfService {
         shelf.getLock().lock();
         int pos = -1;
         try {
-            masterLock.lock();
-            switch (temp) {
-                case HOT:
-                    pos = shelf.getHotHead().value();
-                    break;
-                case COLD:
-                    pos = shelf.getColdHead().value();
-                    break;
-                case FROZEN:
-                    pos = shelf.getFrozenHead().value();
-            }
+            lockMaster();
+            pos = shelf.getHead(temp);
+            if (pos == Shelf.NONE) throw new IllegalStateException("no " + temp + " order on " + shelf.getName() + " shelf");
             Order o = shelf.getCells()[pos];
             UUID id = o.getId();
 
             validateStateMaintained(shelf);
+            double lifeValue = computeLifeValue(o, shelf);
             removeOrderHelper(id, shelf);
             validateStateMaintained(shelf);
-            shelfMgmtSystem.readContents("MOVED - random order " + o.getId() + " moved from " + shelf.getName() + " shelf at position " + pos+ " to " + o.getTemp() + " shelf", shelf.getClass().getSimpleName());
+            journal.publish(ShelfEventType.MOVED_OUT, o, shelf, pos, lifeValue);
 
             return o;
         } finally {
-            masterLock.unlock();
+            unlockMaster();
             shelf.getLock().unlock();
         }
 
     }
 
     /**
-     * discard a random order from overflow shelf when overflow is full and moving an order from overflow
-     * to regular shelf is not possible.
+     * discard an order from overflow shelf, chosen by the eviction policy, when overflow is full and moving an order
+     * from overflow to regular shelf is not possible.
      *
      * @return the discarded order from overflow
      */
-    public Order discardRandom(Shelf shelf) {
+    public Order evict(Shelf shelf) {
         if (!isOverflowShelf(shelf)) {
             throw new IllegalArgumentException("This method can only be called on Overflow shelf");
         }
         shelf.getLock().lock();
         try {
-            masterLock.lock();
+            lockMaster();
             if (shelf.getCapacity() == 0 || isCellAvailable(shelf)) return null; //overflow shelf must be full
-            int pos = new Random().nextInt(shelf.getCapacity());
+            EvictionPolicy policy = evictionPolicy;
+            int pos = selectVictim(policy, shelf);
             Order o = shelf.getCells()[pos];
             validateStateMaintained(shelf);
+            double lifeValue = computeLifeValue(o, shelf);
             removeOrderHelper(o.getId(), shelf);
             validateStateMaintained(shelf);
-            shelfMgmtSystem.readContents("REMOVAL - discarded: random order from position " + pos + " - " + o.getId() + " discarded from " + shelf.getName() + " shelf; temp: " + o.getTemp(), shelf.getClass().getSimpleName());
+            evictionStats.record(policy, lifeValue);
+            removalStats.record(ShelfEventType.DISCARDED, lifeValue);
+            journal.publish(ShelfEventType.DISCARDED, o, shelf, pos, lifeValue);
             return o;
         } finally {
-            masterLock.unlock();
+            unlockMaster();
             shelf.getLock().unlock();
         }
     }
 
+    /**
+     * precondition: the shelf is full and its lock is held
+     * @param policy
+     * @param shelf
+     * @return position of the order to discard
+     */
+    private int selectVictim(EvictionPolicy policy, Shelf shelf) {
+        switch (policy) {
+            case LOWEST_VALUE:
+                return shelf.getValues().peek(clock.nanoTime());
+            case EARLIEST_EXPIRY:
+                return shelf.getExpiries().peek();
+            default:
+                return ThreadLocalRandom.current().nextInt(shelf.getCapacity());
+        }
+    }
+
     /**
      * remove an order from shelf for delivery
-     * boolean return value decides if need to check other shelves after checking on overflow
+     * return value decides if need to check other shelves after checking on overflow
      * @param order
-     * @return false if the order is not found on shelf; true when the order is found even it's not delivered
+     * @return NOT_FOUND if the order is not found on shelf; PAST_DUE when the order is found but not delivered
      * because life reaches 0 (since delivery starts at overflow, if it's found on overflow, no need to check other shelves)
      */
-    public boolean removeForDelivery(Order order, Shelf shelf) {
+    public DeliveryOutcome removeForDelivery(Order order, Shelf shelf) {
         shelf.getLock().lock();
 
-        // node is null when the order is not on this shelf
+        // pos is NOT_FOUND when the order is not on this shelf
         // not arrived, discarded, cleaned, moved
-        DoublyLinkedNode node = shelf.getLocations().get(order.getId());
-        if (node == null) {
+        int pos = shelf.getLocations().get(order.getId());
+        if (pos == UuidSlotIndex.NOT_FOUND) {
             logger.log(Level.DEBUG, "NOT FOUND - {} is not found on shelf {}", order.getId(), shelf.getName());
         }
 
         try {
-            masterLock.lock();
-            if (node != null) {
-                int pos = shelf.getLocations().get(order.getId()).value();
-                validateStateMaintained(shelf);
-                double lifeValue = computeLifeValue(order, shelf);
-                removeOrderHelper(order.getId(), shelf);
-                validateStateMaintained(shelf);
-                //if lifeValue reached 0 at delivery time
-                if(lifeValue <= 0) {
-                    shelfMgmtSystem.readContents("REMOVAL - past due: order " + order.getId() + " from " + shelf.getName() + " shelf at position " + pos + "; temp: " + order.getTemp(), shelf.getClass().getSimpleName());
-                    return true;
+            lockMaster();
+            if (pos != UuidSlotIndex.NOT_FOUND) return removeForDelivery(order, pos, shelf);
+            return DeliveryOutcome.NOT_FOUND;
+        } finally {
+            unlockMaster();
+            shelf.getLock().unlock();
+        }
+    }
+
+    /**
+     * remove the orders of a courier from shelf for delivery, under one acquisition of the shelf lock
+     * @param orders
+     * @param shelf
+     * @param outcomes DELIVERED or PAST_DUE is put here by order id for every order found on shelf
+     * @return the orders not found on shelf, in list order
+     */
+    public List<Order> removeAllForDelivery(List<Order> orders, Shelf shelf, Map<UUID, DeliveryOutcome> outcomes) {
+        if (orders.isEmpty()) return orders;
+        List<Order> notFound = new ArrayList<>();
+        try {
+            shelf.getLock().lock();
+            lockMaster();
+            validateStateMaintained(shelf);
+            for (Order order : orders) {
+                int pos = shelf.getLocations().get(order.getId());
+                if (pos == UuidSlotIndex.NOT_FOUND) {
+                    notFound.add(order);
+                } else {
+                    outcomes.put(order.getId(), removeForDelivery(order, pos, shelf));
                 }
-                shelfMgmtSystem.readContents("REMOVAL - delivered: order " + order.getId() + " from " + shelf.getName() + " shelf at position " + pos + "; temp: " + order.getTemp(), shelf.getClass().getSimpleName());
-                return true;
             }
-            return false;
+            return notFound;
         } finally {
-            masterLock.unlock();
+            unlockMaster();
             shelf.getLock().unlock();
         }
     }
 
     /**
-     * clean up all past due orders on the overflow shelf
+     * precondition: the order is at pos and the shelf lock is held
+     * @param order
+     * @param pos
+     * @param shelf
+     * @return PAST_DUE if life value reached 0 at delivery time, DELIVERED otherwise
+     */
+    private DeliveryOutcome removeForDelivery(Order order, int pos, Shelf shelf) {
+        validateStateMaintained(shelf);
+        double lifeValue = computeLifeValue(order, shelf);
+        removeOrderHelper(order.getId(), shelf);
+        validateStateMaintained(shelf);
+        //if lifeValue reached 0 at delivery time
+        if(lifeValue <= 0) {
+            removalStats.record(ShelfEventType.PAST_DUE, lifeValue);
+            journal.publish(ShelfEventType.PAST_DUE, order, shelf, pos, lifeValue);
+            return DeliveryOutcome.PAST_DUE;
+        }
+        removalStats.record(ShelfEventType.DELIVERED, lifeValue);
+        journal.publish(ShelfEventType.DELIVERED, order, shelf, pos, lifeValue);
+        return DeliveryOutcome.DELIVERED;
+    }
+
+    /**
+     * clean up all past due orders on a shelf
+     * only the orders whose expiry time has passed are visited, in expiry order
+     * @param shelf
+     * @return expiry deadline ({@link Clock#nanoTime()}) of the next order to clean up, Long.MAX_VALUE if the shelf is empty
      */
-    public void cleanup(Shelf shelf) {
+    public long cleanup(Shelf shelf) {
         shelf.getLock().lock();
         try {
-            for (int i = 0; i < shelf.getCapacity(); i++) {
-                Order order = shelf.getCells()[i];
-                if (order == null) continue;
-                double lifeValue = computeLifeValue(order, shelf);
-                if (lifeValue <=0) {
-                    validateStateMaintained(shelf);
-                    masterLock.lock();
+            long now = clock.nanoTime();
+            while (!shelf.getExpiries().isEmpty() && shelf.getExpiries().peekDeadline() - now <= 0) {
+                int pos = shelf.getExpiries().peek();
+                Order order = shelf.getCells()[pos];
+                validateStateMaintained(shelf);
+                lockMaster();
+                try {
+                    double lifeValue = computeLifeValue(order, shelf);
                     removeOrderHelper(order.getId(), shelf);
-                    shelfMgmtSystem.readContents("REMOVAL - cleaned: order " + order.getId() + " cleaned from " + shelf.getName() + " shelf; temp: " + order.getTemp(), shelf.getClass().getSimpleName());
-                    validateStateMaintained(shelf);
-                    masterLock.unlock();
+                    removalStats.record(ShelfEventType.CLEANED, lifeValue);
+                    journal.publish(ShelfEventType.CLEANED, order, shelf, pos, lifeValue);
+                } finally {
+                    unlockMaster();
                 }
+                validateStateMaintained(shelf);
             }
+            return shelf.getExpiries().peekDeadline();
         } catch (Exception e) {
             e.printStackTrace();
+            return shelf.getExpiries().peekDeadline();
         } finally {
             shelf.getLock().unlock();
         }
-
     }
 
     /**
-     * read content on shelf
+     * append content on shelf
+     * called without the shelf lock, so it's a best-effort snapshot
      */
-    public void readContentOnShelf(Shelf shelf) {
-        masterLock.lock();
+    public void readContentOnShelf(Shelf shelf, StringBuilder sb) {
         for (int pos = 0; pos < shelf.getCapacity(); pos++) {
             Order o = shelf.getCells()[pos];
             if (o != null) {
-                System.out.println(shelf.getName() + " shelf - order id: " + o.getId() + ", value: " + computeLifeValue(o, shelf)/*o.computeRemainingLifeValue(2)*/ + ", pos: " + pos + ", temp:" + o.getTemp());
+                sb.append(shelf.getName()).append(" shelf - order id: ").append(o.getId())
+                        .append(", value: ").append(computeLifeValue(o, shelf))
+                        .append(", pos: ").append(pos).append(", temp:").append(o.getTemp())
+                        .append(System.lineSeparator());
             }
         }
-        masterLock.unlock();
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * @param evictionPolicy used by the next {@link #evict(Shelf)}
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    public EvictionStats getEvictionStats() {
+        return evictionStats;
+    }
+
+    public RemovalStats getRemovalStats() {
+        return removalStats;
+    }
+
+    public ShelfEventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * listener is called with the new earliest expiry deadline ({@link Clock#nanoTime()}) of a shelf when a placement
+     * moves it earlier
+     * it's called while the shelf lock is held, so it must not take shelf locks
+     * @param expiryListener
+     */
+    public void setExpiryListener(LongConsumer expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public LockingMode getLockingMode() {
+        return lockingMode;
+    }
+
+    /**
+     * @return lock serializing all shelves of this service in {@link LockingMode#GLOBAL}
+     */
+    public Lock getMasterLock() {
+        return masterLock;
+    }
+
+    /**
+     * master lock is only taken in {@link LockingMode#GLOBAL}; in {@link LockingMode#PER_SHELF}
+     * the shelf lock already held by the caller is the only lock needed
+     */
+    private void lockMaster() {
+        if (lockingMode == LockingMode.GLOBAL) masterLock.lock();
+    }
+
+    private void unlockMaster() {
+        if (lockingMode == LockingMode.GLOBAL) masterLock.unlock();
     }
 
     /**
      * compute remaining life value
+     * the decay of the shelf is fixed in the order at placement, so this is one subtraction and one multiply
      * @param order
      * @param shelf
      * @return
      */
     private double computeLifeValue(Order order, Shelf shelf) {
-        double lifeValue;
-        if (isOverflowShelf(shelf)) {
-            lifeValue = order.computeRemainingLifeValue(2);
-        } else {
-            lifeValue = order.computeRemainingLifeValue(1);
-        }
-        return lifeValue;
+        return order.computeRemainingLifeValue(clock.nanoTime());
+    }
+
+    /**
+     * orders decay twice as fast on overflow
+     * @param shelf
+     * @return
+     */
+    private int decayModifier(Shelf shelf) {
+        return isOverflowShelf(shelf) ? 2 : 1;
     }
 
     /**
@@ -276,39 +497,35 @@ public class ShelfService {
      * @return
      */
     private boolean isOverflowShelf(Shelf shelf) {
-        return !(Temperature.HOT.name().equals(shelf.getName())
-                || Temperature.COLD.name().equals(shelf.getName())
-                || Temperature.FROZEN.name().equals(shelf.getName()));
+        return shelf == overflowShelf;
     }
 
     /**
-     * extract a DoublyLinkedNode, update previous/next and head/tail
-     * @param node
-     * @param h
-     * @param t
-     * @return
+     * unlink position pos from the chain of its temperature, update previous/next and head/tail
+     * @param temp
+     * @param pos
+     * @param shelf
      */
-    private DoublyLinkedNode[] extractNode(DoublyLinkedNode node, DoublyLinkedNode h, DoublyLinkedNode t, Shelf shelf) {
-        shelf.getLock().lock();
-        DoublyLinkedNode[] temp = new DoublyLinkedNode[] {h, t};
-        try {
-            if (node.previous() == null && node.next() == null) {
-                temp[0] = null;
-                temp[1] = null;
-            } else if (node.next() == null) {
-                node.previous().setNext(null);
-                temp[1] = node.previous();
-            } else if (node.previous() == null) {
-                node.next().setPrevious(null);
-                temp[0] = node.next();
-            } else {
-                node.next().setPrevious(node.previous());
-                node.previous().setNext(node.next());
-            }
-            return temp;
-        } finally {
-            shelf.getLock().unlock();
+    private void extractFromChain(Temperature temp, int pos, Shelf shelf) {
+        int[] previous = shelf.getPrevious();
+        int[] next = shelf.getNext();
+        int p = previous[pos];
+        int n = next[pos];
+        int h = shelf.getHead(temp);
+        int t = shelf.getTail(temp);
+        if (p == Shelf.NONE) {
+            h = n;
+        } else {
+            next[p] = n;
         }
+        if (n == Shelf.NONE) {
+            t = p;
+        } else {
+            previous[n] = p;
+        }
+        previous[pos] = Shelf.NONE;
+        next[pos] = Shelf.NONE;
+        shelf.setHeadTail(temp, h, t);
     }
 
     /**
@@ -316,94 +533,80 @@ public class ShelfService {
      * @param id
      */
     private void removeOrderHelper(UUID id, Shelf shelf) {
-//        if(shelf.getLocations().get(id) == null) return;
         shelf.getLock().lock();
-        DoublyLinkedNode node = shelf.getLocations().remove(id);
-        if (node == null) throw new DataIntegrityViolation("Error: can not remove order not on shelf - order " + id);
-        Order o = shelf.getCells()[node.value()];
-        if (o == null) throw new DataIntegrityViolation("Error: order in locations map but not in cells");
-
-        shelf.getCells()[node.value()] = null;
-
-        shelf.getAvailableCells().offer(node.value());
-        DoublyLinkedNode[] temp;
-        switch (o.getTemp()) {
-            case HOT:
-                temp = extractNode(node, shelf.getHotHead(), shelf.getHotTail(), shelf);
-                shelf.setHotHeadTail(temp[0], temp[1]);
-                break;
-            case COLD:
-                temp = extractNode(node, shelf.getColdHead(), shelf.getColdTail(), shelf);
-                shelf.setColdHeadTail(temp[0], temp[1]);
-                break;
-            case FROZEN:
-                temp = extractNode(node, shelf.getFrozenHead(), shelf.getFrozenTail(), shelf);
-                shelf.setFrozenHeadTail(temp[0], temp[1]);
+        try {
+            int pos = shelf.getLocations().remove(id);
+            if (pos == UuidSlotIndex.NOT_FOUND) throw new DataIntegrityViolation("Error: can not remove order not on shelf - order " + id);
+            Order o = shelf.getCells()[pos];
+            if (o == null) throw new DataIntegrityViolation("Error: order in locations map but not in cells");
+
+            shelf.getCells()[pos] = null;
+            shelf.getAvailableCells().release(pos);
+            shelf.getExpiries().remove(pos);
+            if (isOverflowShelf(shelf)) shelf.getValues().remove(pos, clock.nanoTime());
+            extractFromChain(o.getTemp(), pos, shelf);
+        } finally {
+            shelf.getLock().unlock();
         }
-        shelf.getLock().unlock();
     }
 
     /**
-     * put order o on shelf with position at curr.value(), update head and tail to maintain state
+     * put order o on shelf at position pos, append pos to the tail of its temperature chain
      * @param o
-     * @param curr
+     * @param pos
      * @param shelf
      */
-    private void putOrderOnShelfHelper(Order o, DoublyLinkedNode curr, Shelf shelf) {
+    private void putOrderOnShelfHelper(Order o, int pos, Shelf shelf) {
         shelf.getLock().lock();
-        DoublyLinkedNode h = null;
-        DoublyLinkedNode t = null;
-        switch (o.getTemp()) {
-            case HOT:
-                h = shelf.getHotHead();
-                t = shelf.getHotTail();
-                break;
-            case COLD:
-                h = shelf.getColdHead();
-                t = shelf.getColdTail();
-                break;
-            case FROZEN:
-                h = shelf.getFrozenHead();
-                t = shelf.getFrozenTail();
-        }
-
         try {
-            if (t == null) {
-                h = curr;
-                t = curr;
+            Temperature temp = o.getTemp();
+            int h = shelf.getHead(temp);
+            int t = shelf.getTail(temp);
+            if (t == Shelf.NONE) {
+                h = pos;
             } else {
-                t.setNext(curr);
-                curr.setPrevious(t);
-                t = curr;
+                shelf.getNext()[t] = pos;
+                shelf.getPrevious()[pos] = t;
+            }
+            shelf.setHeadTail(temp, h, pos);
+            shelf.getLocations().put(o.getId(), pos);
+            long now = clock.nanoTime();
+            o.setPlacementTime(decayModifier(shelf), now);
+            long expiry = o.getExpiryDeadline();
+            shelf.getExpiries().add(pos, expiry);
+            if (isOverflowShelf(shelf)) {
+                //value(t) = slope * deadline - slope * t
+                shelf.getValues().add(pos, o.getDecaySlope() * expiry, o.getDecaySlope(), now);
             }
-            switch (o.getTemp()) {
-                case HOT:
-                    shelf.setHotHeadTail(h, t);
-                    break;
-                case COLD:
-                    shelf.setColdHeadTail(h, t);
-                    break;
-                case FROZEN:
-                    shelf.setFrozenHeadTail(h, t);
+            if (shelf.getExpiries().peek() == pos && expiryListener != null) {
+                expiryListener.accept(expiry);
             }
-            shelf.getLocations().put(o.getId(), curr);
-            o.setPlacementTime();
         } finally {
             shelf.getLock().unlock();
         }
+    }
 
+    /**
+     * @param temp
+     * @return shelves holding orders of the temperature
+     */
+    public ShelfGroup getShelfGroup(Temperature temp) {
+        return groups[temp.ordinal()];
     }
 
+    /**
+     * @return first HOT shelf
+     */
     public Shelf getHotShelf() {
-        return hotShelf;
+        return groups[Temperature.HOT.ordinal()].getShard(0);
     }
 
     public Shelf getColdShelf() {
-        return coldShelf;
+        return groups[Temperature.COLD.ordinal()].getShard(0);
     }
 
     public Shelf getFrozenShelf() {
-        return frozenShelf;
+        return groups[Temperature.FROZEN.ordinal()].getShard(0);
     }
 
     public Shelf getOverflowShelf() {
@@ -412,78 +615,40 @@ public class ShelfService {
 
     /**
      * this verifies data is consistent on a shelf before and after an operation on the shelf
+     * it walks every cell, so it only runs when assertions are enabled
      * @param shelf
      */
     private void validateStateMaintained(Shelf shelf) {
+        if (!VALIDATE_STATE) return;
         shelf.getLock().lock();
         try {
-            Iterator<Map.Entry<UUID, DoublyLinkedNode>> it = shelf.getLocations().entrySet().iterator();
-            while (it.hasNext()) {
-                Map.Entry<UUID, DoublyLinkedNode> a = it.next();
-                UUID id = a.getKey();
-                int pos = a.getValue().value();
-                assert shelf.getCells()[pos].getId() == id;
-            }
-            Iterator<Integer> listIt = shelf.getAvailableCells().iterator();
-            while (listIt.hasNext()) {
-                int temp = listIt.next();
-                assert shelf.getCells()[temp] == null;
+            for (int pos = 0; pos < shelf.getCapacity(); pos++) {
+                Order o = shelf.getCells()[pos];
+                assert o == null || shelf.getLocations().get(o.getId()) == pos;
+                assert !shelf.getAvailableCells().isFree(pos) || o == null;
             }
             assert shelf.getLocations().size() + shelf.getAvailableCells().size() == shelf.getCapacity();
-            assert (shelf.getHotHead() == null && shelf.getHotTail() == null) || (shelf.getHotHead() != null && shelf.getHotTail() != null);
-            assert (shelf.getColdHead() == null && shelf.getColdTail() == null) || (shelf.getColdHead() != null && shelf.getColdTail() != null);
-            assert (shelf.getFrozenHead() == null && shelf.getFrozenTail() == null) || (shelf.getFrozenHead() != null && shelf.getFrozenTail() != null);
-            assert (shelf.getHotHead() != shelf.getHotTail()) || (shelf.getHotHead() == null && shelf.getHotTail() == null) || (shelf.getHotHead().previous() == null && shelf.getHotTail().next() == null);
-            assert (shelf.getColdHead() != shelf.getColdTail()) || (shelf.getColdHead() == null && shelf.getColdTail() == null) || (shelf.getColdHead().previous() == null && shelf.getColdTail().next() == null);
-            assert (shelf.getFrozenHead() != shelf.getFrozenTail()) ||(shelf.getFrozenHead()==null && shelf.getFrozenTail() ==null)|| (shelf.getFrozenHead().previous() == null && shelf.getFrozenTail().next() == null);
-            DoublyLinkedNode node = shelf.getHotHead();
-            int sum = 0;
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.HOT;
-                sum++;
-                node = node.next();
-            }
-            node = shelf.getColdHead();
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.COLD;
-                sum++;
-                node = node.next();
-            }
-            node = shelf.getFrozenHead();
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.FROZEN;
-                sum++;
-                node = node.next();
-            }
-            assert sum == shelf.getLocations().size();
-            sum = 0;
-            node = shelf.getHotTail();
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.HOT;
-                sum++;
-                node = node.previous();
-            }
-            node = shelf.getColdTail();
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.COLD;
-                sum++;
-                node = node.previous();
-            }
-            node = shelf.getFrozenTail();
-            while (node != null) {
-                Order o = shelf.getCells()[node.value()];
-                assert o != null && o.getTemp() == Temperature.FROZEN;
-                sum++;
-                node = node.previous();
+            assert !isOverflowShelf(shelf) || shelf.getValues().size() == shelf.getLocations().size();
+            int forward = 0;
+            int backward = 0;
+            for (Temperature temp : Temperature.values()) {
+                int h = shelf.getHead(temp);
+                int t = shelf.getTail(temp);
+                assert (h == Shelf.NONE) == (t == Shelf.NONE);
+                assert h == Shelf.NONE || (shelf.getPrevious()[h] == Shelf.NONE && shelf.getNext()[t] == Shelf.NONE);
+                for (int pos = h; pos != Shelf.NONE; pos = shelf.getNext()[pos]) {
+                    Order o = shelf.getCells()[pos];
+                    assert o != null && o.getTemp() == temp;
+                    forward++;
+                }
+                for (int pos = t; pos != Shelf.NONE; pos = shelf.getPrevious()[pos]) {
+                    Order o = shelf.getCells()[pos];
+                    assert o != null && o.getTemp() == temp;
+                    backward++;
+                }
             }
-            assert sum == shelf.getLocations().size();
-        }catch (Exception e) {
-            e.printStackTrace();
+            assert forward == shelf.getLocations().size();
+            assert backward == shelf.getLocations().size();
         } finally {
             shelf.getLock().unlock();
         }
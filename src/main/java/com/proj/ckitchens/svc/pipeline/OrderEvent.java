@@ -0,0 +1,38 @@
+package com.proj.ckitchens.svc.pipeline;
+
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.Kitchen;
+
+/**
+ * preallocated slot of an {@link OrderPipeline} ring
+ * written by the publisher and then by each stage in turn; a stage only sees a slot after the stage before it is
+ * done with it, so fields need no synchronization. Cleared after the last stage and reused.
+ */
+public class OrderEvent {
+    private Order order;
+    private Kitchen kitchen;
+
+    public Order getOrder() {
+        return order;
+    }
+
+    void setOrder(Order order) {
+        this.order = order;
+    }
+
+    /**
+     * @return kitchen of the order, set by the cook stage; null if the order is for an unknown kitchen
+     */
+    public Kitchen getKitchen() {
+        return kitchen;
+    }
+
+    public void setKitchen(Kitchen kitchen) {
+        this.kitchen = kitchen;
+    }
+
+    void clear() {
+        order = null;
+        kitchen = null;
+    }
+}
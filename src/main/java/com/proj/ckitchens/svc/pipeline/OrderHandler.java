@@ -0,0 +1,14 @@
+package com.proj.ckitchens.svc.pipeline;
+
+/**
+ * one stage of an {@link OrderPipeline}, run by a single thread
+ */
+@FunctionalInterface
+public interface OrderHandler {
+    /**
+     * @param event
+     * @param sequence position of the event in the pipeline
+     * @param endOfBatch true for the last event currently available to this stage
+     */
+    void onEvent(OrderEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,197 @@
+package com.proj.ckitchens.svc.pipeline;
+
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.ChefMgmtService;
+import com.proj.ckitchens.svc.Kitchen;
+import com.proj.ckitchens.svc.KitchenRegistry;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * order pipeline on a preallocated ring of {@link OrderEvent} slots, an alternative to the dispatch queues
+ * any thread publishes orders; each stage is one thread running an {@link OrderHandler} over the events the stage
+ * before it has finished, in sequence order. Stages only exchange sequence numbers: no queue nodes, tasks or locks
+ * are allocated per order, and slots are reused once the last stage is done with them.
+ * A publisher facing a full ring and a stage with nothing to do wait according to the {@link WaitStrategy}.
+ */
+public class OrderPipeline {
+    private final OrderEvent[] ring;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final OrderHandler[] handlers;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    //sequence published in each slot, so the first stage can tell which claimed slots are written
+    private final AtomicLongArray published;
+    //last sequence each stage has finished
+    private final AtomicLong[] stages;
+    private final Thread[] workers;
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private static final Logger logger = LogManager.getLogger(OrderPipeline.class);
+
+    /**
+     * @param capacity ring size, rounded up to a power of 2
+     * @param waitStrategy
+     * @param handlers stages, in order
+     */
+    public OrderPipeline(int capacity, WaitStrategy waitStrategy, OrderHandler... handlers) {
+        if (handlers.length == 0) throw new IllegalArgumentException("a pipeline needs at least one stage");
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new OrderEvent[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.handlers = handlers.clone();
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            ring[i] = new OrderEvent();
+            published.set(i, -1);
+        }
+        this.stages = new AtomicLong[handlers.length];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new AtomicLong(-1);
+        }
+        this.workers = new Thread[handlers.length];
+    }
+
+    /**
+     * intake → cook → shelf placement → courier dispatch for the kitchens of a registry
+     * @param kitchens
+     * @param chefs cooks the order, e.g. {@link ChefMgmtService#cookOrder(Order)}
+     * @param couriers sends a courier for a placed order, e.g. {@link com.proj.ckitchens.svc.DeliveryService#dispatch(Order)}
+     * @param capacity
+     * @param waitStrategy
+     * @return a pipeline to {@link #start()}
+     */
+    public static OrderPipeline create(KitchenRegistry kitchens, Consumer<Order> chefs, Consumer<Order> couriers,
+                                       int capacity, WaitStrategy waitStrategy) {
+        return new OrderPipeline(capacity, waitStrategy,
+                (event, sequence, endOfBatch) -> {
+                    Kitchen kitchen = kitchens.forOrder(event.getOrder());
+                    if (kitchen == null) {
+                        logger.log(Level.WARN, OrderPipeline.class.getSimpleName() + " order {} is for unknown kitchen {}",
+                                event.getOrder().getId(), event.getOrder().getKitchenId());
+                        return;
+                    }
+                    chefs.accept(event.getOrder());
+                    event.setKitchen(kitchen);
+                },
+                (event, sequence, endOfBatch) -> {
+                    if (event.getKitchen() != null) event.getKitchen().getShelfMgmtSystem().placeOrderOnShelf(event.getOrder());
+                },
+                (event, sequence, endOfBatch) -> {
+                    if (event.getKitchen() != null) couriers.accept(event.getOrder());
+                });
+    }
+
+    /**
+     * start one thread per stage
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            int stage = i;
+            workers[i] = new Thread(() -> runStage(stage), OrderPipeline.class.getSimpleName() + "-stage-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * add an order to the pipeline, waiting while the ring is full
+     * @param order
+     * @return false if the pipeline is shut down
+     */
+    public boolean publish(Order order) {
+        if (!accepting) return false;
+        long seq = claimed.incrementAndGet();
+        long wrapPoint = seq - ring.length;
+        AtomicLong last = stages[stages.length - 1];
+        for (int attempt = 0; last.get() < wrapPoint; attempt++) {
+            waitStrategy.idle(attempt);
+        }
+        int slot = (int) seq & mask;
+        ring[slot].setOrder(order);
+        published.lazySet(slot, seq);
+        return true;
+    }
+
+    /**
+     * @return sequences claimed so far
+     */
+    public long getPublished() {
+        return claimed.get() + 1;
+    }
+
+    /**
+     * @param stage
+     * @return events the stage has finished
+     */
+    public long getProcessed(int stage) {
+        return stages[stage].get() + 1;
+    }
+
+    /**
+     * stop accepting orders, let the stages finish the orders already published and stop their threads
+     * orders published concurrently with this call may be left unprocessed
+     * @throws InterruptedException
+     */
+    public void shutdown() throws InterruptedException {
+        accepting = false;
+        long end = claimed.get();
+        AtomicLong last = stages[stages.length - 1];
+        for (int attempt = 0; running && last.get() < end; attempt++) {
+            waitStrategy.idle(attempt);
+        }
+        running = false;
+        for (Thread worker : workers) {
+            if (worker != null) worker.join();
+        }
+    }
+
+    private void runStage(int stage) {
+        OrderHandler handler = handlers[stage];
+        AtomicLong sequence = stages[stage];
+        boolean last = stage == stages.length - 1;
+        long next = sequence.get() + 1;
+        int attempt = 0;
+        while (running) {
+            long available = available(stage, next);
+            if (available < next) {
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+            for (long s = next; s <= available; s++) {
+                OrderEvent event = ring[(int) s & mask];
+                try {
+                    handler.onEvent(event, s, s == available);
+                } catch (RuntimeException e) {
+                    logger.log(Level.ERROR, OrderPipeline.class.getSimpleName() + " stage {} failed on event {}", stage, s, e);
+                }
+                if (last) event.clear();
+            }
+            sequence.lazySet(available);
+            next = available + 1;
+            attempt = 0;
+        }
+    }
+
+    /**
+     * @param stage
+     * @param next
+     * @return highest sequence the stage can process, next - 1 if there is none
+     */
+    private long available(int stage, long next) {
+        if (stage > 0) return stages[stage - 1].get();
+        long available = next - 1;
+        while (published.get((int) (available + 1) & mask) == available + 1) {
+            available++;
+        }
+        return available;
+    }
+}
@@ -0,0 +1,48 @@
+package com.proj.ckitchens.svc.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * what a pipeline stage, or a publisher facing a full ring, does while it waits
+ * <ul>
+ *     <li>BUSY_SPIN: keeps the core, lowest latency; one core per waiting thread</li>
+ *     <li>YIELD: spins a little, then yields the core to other threads</li>
+ *     <li>PARK: spins a little, then parks for a short time; near zero CPU when idle, latency in tens of microseconds</li>
+ * </ul>
+ */
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * @param attempt number of times the caller found nothing to do since it last made progress
+     */
+    abstract void idle(int attempt);
+}
@@ -4,7 +4,17 @@ import java.util.Random;
 
 public class RandomInt {
     public static int randomDelay(int low, int up) {
+        return randomDelay(new Random(), low, up);
+    }
+
+    /**
+     * @param random source of the delay, seeded for a repeatable run
+     * @param low
+     * @param up
+     * @return
+     */
+    public static int randomDelay(Random random, int low, int up) {
         if (low > up || low <= 0) return 5;
-        return new Random().nextInt((up + low)/2) + low;
+        return random.nextInt((up + low)/2) + low;
     }
 }
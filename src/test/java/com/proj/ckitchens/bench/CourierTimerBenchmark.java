@@ -0,0 +1,71 @@
+package com.proj.ckitchens.bench;
+
+import com.proj.ckitchens.common.ExecutorTaskScheduler;
+import com.proj.ckitchens.common.HashedTimingWheel;
+import com.proj.ckitchens.common.TaskScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cost of scheduling and cancelling a courier arrival with many arrivals already pending,
+ * timing wheel vs a scheduled thread pool
+ * pending arrivals are 2-6s away and each benchmarked one is cancelled, so the pending count stays the same
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourierTimerBenchmark {
+    @Param({"WHEEL", "EXECUTOR"})
+    public String scheduler;
+
+    @Param({"1000", "100000"})
+    public int pending;
+
+    private TaskScheduler timers;
+    private static final Runnable NOTHING = () -> {};
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (scheduler.equals("WHEEL")) {
+            timers = new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 1024, 4);
+        } else {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(4);
+            executor.setRemoveOnCancelPolicy(true);
+            timers = new ExecutorTaskScheduler(executor);
+        }
+        for (int i = 0; i < pending; i++) {
+            timers.schedule(NOTHING, 3600 + i % 4, TimeUnit.SECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timers.shutdown();
+    }
+
+    @Benchmark
+    public TaskScheduler.ScheduledTask scheduleAndCancel() {
+        TaskScheduler.ScheduledTask task = timers.schedule(NOTHING,
+                2000 + ThreadLocalRandom.current().nextInt(4000), TimeUnit.MILLISECONDS);
+        task.cancel();
+        return task;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CourierTimerBenchmark.class.getSimpleName())
+                .threads(4)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,122 @@
+package com.proj.ckitchens.bench;
+
+import com.proj.ckitchens.common.MpmcArrayQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * non-blocking offer and poll throughput of {@link MpmcArrayQueue} vs the JDK blocking queues, all bounded to
+ * {@value #CAPACITY}, with 1 producer and 1 consumer, 4 producers and 1 consumer, and 1 producer and 4 consumers
+ * the offered and polled counters are the operations that succeeded; the primary score also counts offers on a full
+ * and polls on an empty queue
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class MpmcQueueBenchmark {
+    private static final int CAPACITY = 1024;
+    private static final Object ELEMENT = new Object();
+
+    @Param({"MPMC", "LINKED", "ARRAY"})
+    public String queue;
+
+    private MpmcArrayQueue<Object> mpmc;
+    private BlockingQueue<Object> blocking;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        mpmc = null;
+        blocking = null;
+        switch (queue) {
+            case "MPMC":
+                mpmc = new MpmcArrayQueue<>(CAPACITY);
+                break;
+            case "LINKED":
+                blocking = new LinkedBlockingQueue<>(CAPACITY);
+                break;
+            default:
+                blocking = new ArrayBlockingQueue<>(CAPACITY);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long offered;
+        public long polled;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            polled = 0;
+        }
+    }
+
+    private void offer(Counters counters) {
+        if (mpmc != null ? mpmc.offer(ELEMENT) : blocking.offer(ELEMENT)) counters.offered++;
+    }
+
+    private void poll(Counters counters) {
+        if ((mpmc != null ? mpmc.poll() : blocking.poll()) != null) counters.polled++;
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public void offer1to1(Counters counters) {
+        offer(counters);
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public void poll1to1(Counters counters) {
+        poll(counters);
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(4)
+    public void offer4to1(Counters counters) {
+        offer(counters);
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(1)
+    public void poll4to1(Counters counters) {
+        poll(counters);
+    }
+
+    @Benchmark
+    @Group("p1c4")
+    @GroupThreads(1)
+    public void offer1to4(Counters counters) {
+        offer(counters);
+    }
+
+    @Benchmark
+    @Group("p1c4")
+    @GroupThreads(4)
+    public void poll1to4(Counters counters) {
+        poll(counters);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MpmcQueueBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
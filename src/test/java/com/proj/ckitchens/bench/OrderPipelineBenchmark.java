@@ -0,0 +1,125 @@
+package com.proj.ckitchens.bench;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.KitchenRegistry;
+import com.proj.ckitchens.svc.OrderDispatchService;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.pipeline.OrderPipeline;
+import com.proj.ckitchens.svc.pipeline.WaitStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * orders per second through intake → cook → shelf placement → courier, with the ring buffer pipeline
+ * vs the dispatch queues
+ * the courier stage delivers at once and each temperature shelf holds a full ring, so orders never spill to overflow
+ * and the numbers measure the hand-offs, not shelf space.
+ * Orders come from a pool twice the ring size: by the time one is published again it has left the pipeline.
+ * run with {@link #main(String[])}, with -prof gc to check allocation per order
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPipelineBenchmark {
+    private static final int RING = 1024;
+    private static final int POOL = 2 * RING;
+
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        @Param({"BUSY_SPIN", "YIELD", "PARK"})
+        public WaitStrategy waitStrategy;
+
+        OrderPipeline pipeline;
+        Order[] orders;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            KitchenRegistry kitchens = KitchenRegistry.create(shelves(), JournalMode.OFF);
+            pipeline = OrderPipeline.create(kitchens, o -> {},
+                    o -> kitchens.forOrder(o).getShelfMgmtSystem().deliverOrder(o), RING, waitStrategy);
+            orders = orders();
+            pipeline.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            pipeline.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Queues {
+        LinkedBlockingQueue<Order> intake = new LinkedBlockingQueue<>();
+        OrderDispatchService dispatch;
+        KitchenRegistry kitchens;
+        Order[] orders;
+        int next;
+        List<Order> batch = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            kitchens = KitchenRegistry.create(shelves(), JournalMode.OFF);
+            dispatch = new OrderDispatchService(intake, new LinkedBlockingQueue<>());
+            orders = orders();
+        }
+    }
+
+    @Benchmark
+    public boolean pipeline(Pipeline p) {
+        return p.pipeline.publish(p.orders[p.next++ & (POOL - 1)]);
+    }
+
+    /**
+     * the same stages on one thread, handing each order through the orders and delivery queues
+     */
+    @Benchmark
+    public int queues(Queues q) {
+        OrderDispatchService dispatch = q.dispatch;
+        q.intake.add(q.orders[q.next++ & (POOL - 1)]);
+        Order o = dispatch.getIncomingOrder(0, TimeUnit.NANOSECONDS);
+        q.kitchens.forOrder(o).getShelfMgmtSystem().placeOrderOnShelf(o);
+        q.batch.clear();
+        dispatch.drainOrdersForDelivery(q.batch, 64, 0, TimeUnit.NANOSECONDS);
+        for (Order d : q.batch) {
+            q.kitchens.forOrder(d).getShelfMgmtSystem().deliverOrder(d);
+        }
+        return q.batch.size();
+    }
+
+    private static KitchenProperties shelves() {
+        KitchenProperties properties = new KitchenProperties();
+        properties.getHot().setCapacity(RING);
+        properties.getCold().setCapacity(RING);
+        properties.getFrozen().setCapacity(RING);
+        return properties;
+    }
+
+    private static Order[] orders() {
+        Order[] orders = new Order[POOL];
+        for (int i = 0; i < POOL; i++) {
+            orders[i] = new Order(UUID.randomUUID(), Temperature.values()[i % 3], "bench", 300, 0.5);
+        }
+        return orders;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderPipelineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.proj.ckitchens.bench;
+
+import com.proj.ckitchens.common.LockingMode;
+import com.proj.ckitchens.common.ShardRouting;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.Shelf;
+import com.proj.ckitchens.model.ShelfGroup;
+import com.proj.ckitchens.svc.Kitchen;
+import com.proj.ckitchens.svc.KitchenRegistry;
+import com.proj.ckitchens.svc.ShelfMgmtSystem;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.operations.ShelfService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * chef throughput (place + deliver one order) with the global master lock vs per-shelf locks,
+ * with one shelf vs several shards per temperature, and with one kitchen vs several independent kitchens
+ * run with {@link #main(String[])} to get the 1/4/16/64 chef thread comparison
+ * shelf dumps go to a null stream so the numbers measure locking, not the terminal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShelfLockingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Kitchens {
+        @Param({"GLOBAL", "PER_SHELF"})
+        public LockingMode mode;
+
+        @Param({"10"})
+        public int capacity;
+
+        @Param({"1", "4"})
+        public int shards;
+
+        @Param({"HASH", "LEAST_LOADED"})
+        public ShardRouting routing;
+
+        @Param({"1", "4"})
+        public int kitchens;
+
+        KitchenRegistry registry;
+        private PrintStream stdout;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            stdout = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            registry = new KitchenRegistry();
+            for (int k = 0; k < kitchens; k++) {
+                ShelfService service = new ShelfService(
+                        ShelfGroup.create(Temperature.HOT, capacity, shards, routing),
+                        ShelfGroup.create(Temperature.COLD, capacity, shards, routing),
+                        ShelfGroup.create(Temperature.FROZEN, capacity, shards, routing),
+                        new Shelf(new ReentrantLock(true), capacity + capacity / 2, "Overflow"),
+                        mode,
+                        new ShelfEventJournal(JournalMode.OFF)
+                );
+                registry.register(new Kitchen("k" + k, new ShelfMgmtSystem(service)));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.setOut(stdout);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Chef {
+        private static final AtomicInteger ids = new AtomicInteger();
+        Temperature temp;
+        String kitchenId;
+
+        @Setup(Level.Trial)
+        public void setup(Kitchens kitchens) {
+            int id = ids.getAndIncrement();
+            temp = Temperature.values()[id % Temperature.values().length];
+            kitchenId = "k" + (id / Temperature.values().length) % kitchens.kitchens;
+        }
+
+        Order nextOrder() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            return new Order(new UUID(rnd.nextLong(), rnd.nextLong()), temp, "bench", 300, 0.5, kitchenId);
+        }
+    }
+
+    @Benchmark
+    public Order placeAndDeliver(Kitchens kitchens, Chef chef) {
+        Order o = chef.nextOrder();
+        ShelfMgmtSystem system = kitchens.registry.forOrder(o).getShelfMgmtSystem();
+        system.placeOrderOnShelf(o);
+        system.deliverOrder(o);
+        return o;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 4, 16, 64}) {
+            Options opt = new OptionsBuilder()
+                    .include(ShelfLockingBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
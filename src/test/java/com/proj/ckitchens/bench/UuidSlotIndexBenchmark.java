@@ -0,0 +1,82 @@
+package com.proj.ckitchens.bench;
+
+import com.proj.ckitchens.common.UuidSlotIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * put/get/remove on {@link UuidSlotIndex} vs the HashMap previously used for Shelf.locations
+ * the index is kept full, as on a busy shelf; each remove is followed by a put of the same id
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UuidSlotIndexBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int shelfSize;
+
+    private UUID[] ids;
+    private UuidSlotIndex index;
+    private Map<UUID, Integer> map;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ids = new UUID[shelfSize];
+        index = new UuidSlotIndex(shelfSize);
+        map = new HashMap<>();
+        for (int i = 0; i < shelfSize; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            index.put(ids[i], i);
+            map.put(ids[i], i);
+        }
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == shelfSize ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public int indexGet() {
+        return index.get(ids[next()]);
+    }
+
+    @Benchmark
+    public int indexRemovePut() {
+        int i = next();
+        int slot = index.remove(ids[i]);
+        index.put(ids[i], slot);
+        return slot;
+    }
+
+    @Benchmark
+    public Integer hashMapGet() {
+        return map.get(ids[next()]);
+    }
+
+    @Benchmark
+    public Integer hashMapRemovePut() {
+        int i = next();
+        Integer slot = map.remove(ids[i]);
+        map.put(ids[i], slot);
+        return slot;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UuidSlotIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
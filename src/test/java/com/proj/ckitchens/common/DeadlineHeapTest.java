@@ -0,0 +1,55 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineHeapTest {
+
+    @Test
+    public void testPeekRemoveUpdate() {
+        DeadlineHeap heap = new DeadlineHeap(4);
+        assertEquals(DeadlineHeap.NONE, heap.peek());
+        assertEquals(Long.MAX_VALUE, heap.peekDeadline());
+
+        heap.add(0, 30);
+        heap.add(1, 10);
+        heap.add(2, 20);
+        assertEquals(1, heap.peek());
+
+        assertTrue(heap.remove(1));
+        assertFalse(heap.remove(1));
+        assertEquals(2, heap.peek());
+
+        heap.update(0, 5);
+        assertEquals(0, heap.peek());
+        assertEquals(5, heap.peekDeadline());
+        assertEquals(2, heap.size());
+    }
+
+    @Test
+    public void testMatchesPriorityQueue() {
+        int capacity = 128;
+        DeadlineHeap heap = new DeadlineHeap(capacity);
+        PriorityQueue<long[]> expected = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        long[] deadlines = new long[capacity];
+        Random random = new Random(3);
+        for (int step = 0; step < 50_000; step++) {
+            int id = random.nextInt(capacity);
+            if (heap.contains(id)) {
+                heap.remove(id);
+                long d = deadlines[id];
+                expected.removeIf(e -> e[1] == id && e[0] == d);
+            } else {
+                deadlines[id] = random.nextInt(1000);
+                heap.add(id, deadlines[id]);
+                expected.add(new long[] {deadlines[id], id});
+            }
+            assertEquals(expected.size(), heap.size());
+            assertEquals(expected.isEmpty() ? Long.MAX_VALUE : expected.peek()[0], heap.peekDeadline());
+        }
+    }
+}
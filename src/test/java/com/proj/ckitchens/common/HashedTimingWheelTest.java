@@ -0,0 +1,78 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimingWheelTest {
+
+    @Test
+    public void testTasksRunNotBeforeTheirDelay() throws InterruptedException {
+        //8 buckets of 1ms: delays up to 40ms take several rotations
+        HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8, 2);
+        int count = 200;
+        CountDownLatch done = new CountDownLatch(count);
+        ConcurrentHashMap<Integer, Long> early = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int delay = i % 40;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            int id = i;
+            wheel.schedule(() -> {
+                long now = System.nanoTime();
+                if (now < deadline) early.put(id, deadline - now);
+                done.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(early.isEmpty(), "ran early: " + early);
+        assertEquals(0, wheel.pending());
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testCancelAndShutdown() throws InterruptedException {
+        HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 16, 1);
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        TaskScheduler.ScheduledTask cancelled = wheel.schedule(() -> cancelledRan.set(true), 20, TimeUnit.MILLISECONDS);
+        CountDownLatch ran = new CountDownLatch(1);
+        wheel.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+        assertEquals(1, wheel.pending());
+
+        wheel.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> wheel.schedule(() -> {}, 1, TimeUnit.MILLISECONDS));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        assertFalse(cancelledRan.get());
+    }
+
+    @Test
+    public void testScheduleRacingShutdownRunsOrRejects() throws InterruptedException {
+        HashedTimingWheel stopped = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8, 1);
+        stopped.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> stopped.schedule(() -> { }, 0, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 200; i++) {
+            HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8, 1);
+            CountDownLatch ran = new CountDownLatch(1);
+            AtomicBoolean rejected = new AtomicBoolean();
+            Thread scheduler = new Thread(() -> {
+                try {
+                    wheel.schedule(ran::countDown, 0, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    rejected.set(true);
+                }
+            });
+            scheduler.start();
+            wheel.shutdown();
+            scheduler.join();
+            assertTrue(rejected.get() || ran.await(5, TimeUnit.SECONDS), "scheduled task neither ran nor was rejected");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBucketsCoverTheirValues() {
+        for (long v : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = Histogram.index(v);
+            assertTrue(Histogram.highest(index) >= v, "value " + v);
+            assertTrue(index == 0 || Histogram.highest(index - 1) < v, "value " + v);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v * 1000);
+        }
+        histogram.record(-5);
+        assertEquals(10_001, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 16d);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 16d);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+}
@@ -0,0 +1,61 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KineticMinHeapTest {
+
+    @Test
+    public void testMinimumChangesOverTime() {
+        KineticMinHeap heap = new KineticMinHeap(4);
+        assertEquals(KineticMinHeap.NONE, heap.peek(0));
+
+        heap.add(0, 10, 0, 0);   //constant 10
+        heap.add(1, 20, 1, 0);   //20 - t, below 10 after t = 10
+        heap.add(2, 30, 2, 0);   //30 - 2t, below 20 - t after t = 10, below 10 after t = 10
+        assertEquals(0, heap.peek(5));
+        assertEquals(2, heap.peek(11));
+
+        assertTrue(heap.remove(2, 11));
+        assertFalse(heap.remove(2, 11));
+        assertEquals(1, heap.peek(12));
+        assertEquals(2, heap.size());
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        int capacity = 64;
+        KineticMinHeap heap = new KineticMinHeap(capacity);
+        double[] intercepts = new double[capacity];
+        double[] slopes = new double[capacity];
+        boolean[] present = new boolean[capacity];
+        Random random = new Random(5);
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            now += random.nextInt(50);
+            int id = random.nextInt(capacity);
+            if (present[id]) {
+                heap.remove(id, now);
+                present[id] = false;
+            } else {
+                slopes[id] = random.nextDouble();
+                intercepts[id] = random.nextInt(10_000) + slopes[id] * now;
+                heap.add(id, intercepts[id], slopes[id], now);
+                present[id] = true;
+            }
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < capacity; i++) {
+                if (present[i]) min = Math.min(min, intercepts[i] - slopes[i] * now);
+            }
+            int top = heap.peek(now);
+            if (top == KineticMinHeap.NONE) {
+                assertEquals(Double.MAX_VALUE, min);
+            } else {
+                assertEquals(min, intercepts[top] - slopes[top] * now, 1e-6);
+            }
+        }
+    }
+}
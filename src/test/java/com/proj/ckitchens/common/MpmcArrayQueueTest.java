@@ -0,0 +1,148 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpmcArrayQueueTest {
+
+    @Test
+    public void testBoundedFifo() throws InterruptedException {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertFalse(queue.put(4, 5, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));
+        List<Integer> batch = new ArrayList<>();
+        assertEquals(2, queue.drainTo(batch, 2));
+        assertEquals(List.of(1, 2), batch);
+        assertEquals(2, queue.size());
+        assertEquals(3, queue.poll());
+        assertEquals(4, queue.take(5, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll());
+        assertNull(queue.take(5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testProducersAndConsumers() throws InterruptedException {
+        MpmcArrayQueue<Long> queue = new MpmcArrayQueue<>(16);
+        int producers = 4;
+        int consumers = 3;
+        int perProducer = 20_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++) {
+                        assertTrue(queue.put(i, 10, TimeUnit.SECONDS));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        List<Thread> consumerThreads = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            consumerThreads.add(new Thread(() -> {
+                List<Long> batch = new ArrayList<>();
+                try {
+                    Long e;
+                    while ((e = queue.take()) != null) {
+                        sum.addAndGet(e);
+                        count.incrementAndGet();
+                        batch.clear();
+                        queue.drainTo(batch, 8);
+                        for (long b : batch) {
+                            sum.addAndGet(b);
+                            count.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        consumerThreads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        queue.shutdown();
+        for (Thread t : consumerThreads) {
+            t.join(10_000);
+            assertFalse(t.isAlive());
+        }
+        assertEquals((long) producers * perProducer, count.get());
+        assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+    }
+
+    @Test
+    public void testDrainWakesEveryProducerItMadeRoomFor() throws InterruptedException {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        CountDownLatch put = new CountDownLatch(4);
+        for (int p = 0; p < 4; p++) {
+            int e = 4 + p;
+            new Thread(() -> {
+                try {
+                    if (queue.put(e, 30, TimeUnit.SECONDS)) put.countDown();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }).start();
+        }
+        Thread.sleep(50);
+        assertEquals(4, queue.drainTo(new ArrayList<>(), 4));
+        assertTrue(put.await(5, TimeUnit.SECONDS));
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    public void testShutdownAndInterruptWakeWaiters() throws InterruptedException {
+        MpmcArrayQueue<String> queue = new MpmcArrayQueue<>(2);
+        CountDownLatch woken = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                assertNull(queue.take());
+                woken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Thread.sleep(20);
+        queue.shutdown();
+        assertTrue(woken.await(5, TimeUnit.SECONDS));
+        assertFalse(queue.offer("late"));
+
+        MpmcArrayQueue<String> other = new MpmcArrayQueue<>(2);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread interrupted = new Thread(() -> {
+            try {
+                other.take();
+            } catch (InterruptedException e) {
+                thrown.set(e);
+            }
+        });
+        interrupted.start();
+        Thread.sleep(20);
+        interrupted.interrupt();
+        interrupted.join(5_000);
+        assertTrue(thrown.get() instanceof InterruptedException);
+    }
+}
@@ -0,0 +1,60 @@
+package com.proj.ckitchens.common;
+
+import com.proj.ckitchens.utils.DataIntegrityViolation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotAllocatorTest {
+
+    @Test
+    public void testClaimLowestFirstAndRelease() {
+        SlotAllocator allocator = new SlotAllocator(3);
+        assertEquals(0, allocator.claim());
+        assertEquals(1, allocator.claim());
+        assertEquals(2, allocator.claim());
+        assertEquals(-1, allocator.claim());
+        assertFalse(allocator.hasAvailable());
+
+        allocator.release(1);
+        assertTrue(allocator.isFree(1));
+        assertEquals(1, allocator.size());
+        assertEquals(1, allocator.claim());
+        assertThrows(DataIntegrityViolation.class, () -> {
+            allocator.release(0);
+            allocator.release(0);
+        });
+    }
+
+    @Test
+    public void testZeroCapacity() {
+        SlotAllocator allocator = new SlotAllocator(0);
+        assertFalse(allocator.hasAvailable());
+        assertEquals(-1, allocator.claim());
+    }
+
+    @Test
+    public void testConcurrentClaimsAreUnique() throws InterruptedException {
+        int capacity = 1000;
+        SlotAllocator allocator = new SlotAllocator(capacity);
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                int pos;
+                while ((pos = allocator.claim()) >= 0) {
+                    assertTrue(claimed.add(pos));
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(capacity, claimed.size());
+        assertEquals(0, allocator.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidSlotIndexTest {
+
+    @Test
+    public void testPutGetRemove() {
+        UuidSlotIndex index = new UuidSlotIndex(3);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        assertEquals(UuidSlotIndex.NOT_FOUND, index.put(a, 0));
+        assertEquals(UuidSlotIndex.NOT_FOUND, index.put(b, 2));
+        assertEquals(0, index.get(a));
+        assertEquals(2, index.get(b));
+        assertEquals(2, index.size());
+
+        assertEquals(0, index.put(a, 1));
+        assertEquals(1, index.get(a));
+        assertEquals(2, index.size());
+
+        assertEquals(1, index.remove(a));
+        assertFalse(index.containsKey(a));
+        assertEquals(UuidSlotIndex.NOT_FOUND, index.remove(a));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testFixedCapacity() {
+        UuidSlotIndex index = new UuidSlotIndex(1);
+        index.put(UUID.randomUUID(), 0);
+        assertThrows(IllegalStateException.class, () -> index.put(UUID.randomUUID(), 0));
+    }
+
+    /**
+     * random churn at full load - ids must stay reachable after removals in the middle of a probe chain
+     */
+    @Test
+    public void testMatchesHashMapUnderChurn() {
+        int capacity = 64;
+        UuidSlotIndex index = new UuidSlotIndex(capacity);
+        Map<UUID, Integer> expected = new HashMap<>();
+        UUID[] ids = new UUID[capacity];
+        Random random = new Random(7);
+        for (int step = 0; step < 100_000; step++) {
+            int slot = random.nextInt(capacity);
+            if (ids[slot] == null) {
+                ids[slot] = new UUID(random.nextInt(4), random.nextLong());
+                index.put(ids[slot], slot);
+                expected.put(ids[slot], slot);
+            } else {
+                assertEquals(slot, index.remove(ids[slot]));
+                expected.remove(ids[slot]);
+                ids[slot] = null;
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (Map.Entry<UUID, Integer> e : expected.entrySet()) {
+            assertEquals((int) e.getValue(), index.get(e.getKey()));
+        }
+    }
+}
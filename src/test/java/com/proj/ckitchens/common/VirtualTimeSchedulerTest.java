@@ -0,0 +1,51 @@
+package com.proj.ckitchens.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualTimeSchedulerTest {
+
+    @Test
+    public void testRunsInTimeOrder() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler(1_000);
+        List<String> ran = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        scheduler.schedule(() -> { ran.add("b"); times.add(scheduler.nanoTime()); }, 2, TimeUnit.SECONDS);
+        scheduler.schedule(() -> { ran.add("a"); times.add(scheduler.nanoTime()); }, 1, TimeUnit.SECONDS);
+        scheduler.schedule(() -> ran.add("c"), 2, TimeUnit.SECONDS);
+        scheduler.schedule(() -> ran.add("x"), 1, TimeUnit.SECONDS).cancel();
+
+        assertEquals(1, scheduler.advance(1500, TimeUnit.MILLISECONDS));
+        assertEquals(1_500_000_000L, scheduler.nanoTime());
+        assertEquals(2_500, scheduler.currentTimeMillis());
+
+        assertEquals(2, scheduler.runAll());
+        assertEquals(List.of("a", "b", "c"), ran);
+        assertEquals(List.of(1_000_000_000L, 2_000_000_000L), times);
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    public void testTasksScheduleTasks() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        List<Long> ticks = new ArrayList<>();
+        Runnable[] tick = new Runnable[1];
+        tick[0] = () -> {
+            ticks.add(scheduler.nanoTime());
+            if (ticks.size() < 3) scheduler.schedule(tick[0], 10, TimeUnit.NANOSECONDS);
+        };
+        scheduler.schedule(tick[0], 0, TimeUnit.NANOSECONDS);
+        assertEquals(3, scheduler.runUntil(100));
+        assertEquals(List.of(0L, 10L, 20L), ticks);
+        assertEquals(100, scheduler.nanoTime());
+
+        scheduler.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() -> {}, 1, TimeUnit.SECONDS));
+    }
+}
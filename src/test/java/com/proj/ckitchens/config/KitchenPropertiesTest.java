@@ -0,0 +1,53 @@
+package com.proj.ckitchens.config;
+
+import com.proj.ckitchens.common.ChefScheduling;
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.common.LockingMode;
+import com.proj.ckitchens.common.OverloadPolicy;
+import com.proj.ckitchens.common.ShardRouting;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenPropertiesTest {
+
+    @Test
+    public void testLoadApplicationProperties() {
+        KitchenProperties kitchen = KitchenProperties.load("application.properties");
+        assertEquals(10, kitchen.getHot().getCapacity());
+        assertEquals(1, kitchen.getHot().getShards());
+        assertEquals(15, kitchen.getOverflow().getCapacity());
+        assertEquals(ShardRouting.HASH, kitchen.getRouting());
+        assertEquals(LockingMode.PER_SHELF, kitchen.getLockingMode());
+        assertEquals(ExecutionStrategy.FIXED, kitchen.getExecution());
+        assertEquals(3, kitchen.getThreads());
+        assertEquals(ChefScheduling.AFFINE, kitchen.getChefScheduling());
+        assertEquals(0, kitchen.getCouriers());
+        assertEquals(1, kitchen.getOrdersPerTrip());
+        assertEquals(10_000, kitchen.getDrainMillis());
+        assertEquals(1000, kitchen.getIntake().getCapacity());
+        assertEquals(OverloadPolicy.BLOCK, kitchen.getIntake().getOverload());
+    }
+
+    @Test
+    public void testMissingResourceKeepsDefaults() {
+        KitchenProperties kitchen = KitchenProperties.load("missing.properties");
+        assertEquals(10, kitchen.getCold().getCapacity());
+        assertEquals(1, kitchen.getFrozen().getShards());
+    }
+
+    @Test
+    public void testRelaxedNamesListsAndEnums() {
+        KitchenProperties kitchen = KitchenProperties.load("kitchen-test.properties");
+        assertEquals(List.of("east", "west"), kitchen.getIds());
+        assertEquals(2, kitchen.getHot().getShards());
+        assertEquals(10, kitchen.getHot().getCapacity());
+        assertEquals(LockingMode.GLOBAL, kitchen.getLockingMode());
+        assertEquals(ChefScheduling.SHARED, kitchen.getChefScheduling());
+        assertEquals(3, kitchen.getOrdersPerTrip());
+        assertEquals(OverloadPolicy.SHED_LOWEST_VALUE, kitchen.getIntake().getOverload());
+        assertEquals(5, kitchen.getIntake().getBlockMillis());
+    }
+}
@@ -0,0 +1,49 @@
+package com.proj.ckitchens.model;
+
+import com.proj.ckitchens.common.Temperature;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testValueDecaysLinearly() {
+        Order o = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 100, 0.5);
+        long now = 1_000 * SECOND;
+        o.setPlacementTime(2, now);
+        //overflow: 1 + 0.5 * 2 = 2 units of life per second, 50 seconds to 0
+        assertEquals(now + 50 * SECOND, o.getExpiryDeadline());
+        assertEquals(1.0, o.computeRemainingLifeValue(now), 1e-9);
+        assertEquals(0.99, o.computeRemainingLifeValue(now + SECOND / 2), 1e-9);
+        assertEquals(0.5, o.computeRemainingLifeValue(now + 25 * SECOND), 1e-9);
+        assertFalse(o.isExpired(now + 50 * SECOND - 1));
+        assertTrue(o.isExpired(now + 50 * SECOND));
+        assertTrue(o.computeRemainingLifeValue(now + 60 * SECOND) < 0);
+    }
+
+    @Test
+    public void testMoveKeepsDecayAndRenormalizes() {
+        Order o = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 100, 0.5);
+        long now = 1_000 * SECOND;
+        o.setPlacementTime(2, now);
+        //10 seconds on overflow cost 20 units of life, decay included
+        o.setLifeAfterMove(now + 10 * SECOND);
+        assertTrue(o.isMoved());
+        o.setPlacementTime(1, now + 10 * SECOND);
+        assertEquals(1.0, o.computeRemainingLifeValue(now + 10 * SECOND), 1e-9);
+        //80 units left at 1.5 per second
+        assertEquals(now + 10 * SECOND + (long) (80 / 1.5 * SECOND), o.getExpiryDeadline());
+    }
+
+    @Test
+    public void testNoLifeExpiresOnPlacement() {
+        Order o = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 0, 0.5);
+        o.setPlacementTime(1, 0);
+        assertTrue(o.isExpired(0));
+        assertEquals(0, o.computeRemainingLifeValue(0), 1e-9);
+    }
+}
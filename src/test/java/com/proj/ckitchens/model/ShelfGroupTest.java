@@ -0,0 +1,42 @@
+package com.proj.ckitchens.model;
+
+import com.proj.ckitchens.common.ShardRouting;
+import com.proj.ckitchens.common.Temperature;
+import org.junit.jupiter.api.Test;
+
+import static com.proj.ckitchens.svc.TestFixture.generateOneHotOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShelfGroupTest {
+
+    @Test
+    public void testCapacitySplitOverShards() {
+        ShelfGroup group = ShelfGroup.create(Temperature.HOT, 10, 3, ShardRouting.HASH);
+        assertEquals(3, group.size());
+        assertEquals(4, group.getShard(0).getCapacity());
+        assertEquals(3, group.getShard(1).getCapacity());
+        assertEquals(3, group.getShard(2).getCapacity());
+        assertEquals("HOT-1", group.getShard(1).getName());
+        assertNotSame(group.getShard(0).getLock(), group.getShard(1).getLock());
+
+        assertEquals("HOT", ShelfGroup.create(Temperature.HOT, 10, 1, ShardRouting.HASH).getShard(0).getName());
+        assertThrows(IllegalArgumentException.class, () -> ShelfGroup.create(Temperature.HOT, 10, 0, ShardRouting.HASH));
+    }
+
+    @Test
+    public void testHashRouting() {
+        ShelfGroup group = ShelfGroup.create(Temperature.HOT, 8, 4, ShardRouting.HASH);
+        Order o = generateOneHotOrder();
+        assertEquals(group.home(o), group.route(o));
+        assertEquals(Math.floorMod(o.getId().hashCode(), 4), group.home(o));
+    }
+
+    @Test
+    public void testLeastLoadedRouting() {
+        ShelfGroup group = ShelfGroup.create(Temperature.HOT, 8, 2, ShardRouting.LEAST_LOADED);
+        assertEquals(0, group.route(generateOneHotOrder()));
+        group.getShard(0).getAvailableCells().claim();
+        assertEquals(1, group.route(generateOneHotOrder()));
+        assertEquals(0, group.home(generateOneHotOrder()));
+    }
+}
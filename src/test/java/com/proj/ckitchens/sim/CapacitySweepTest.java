@@ -0,0 +1,60 @@
+package com.proj.ckitchens.sim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapacitySweepTest {
+    private static final List<Order> MENU = Arrays.asList(
+            new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.45),
+            new Order(UUID.randomUUID(), Temperature.COLD, "Salad", 240, 0.6),
+            new Order(UUID.randomUUID(), Temperature.FROZEN, "Ice Cream", 20, 0.9)
+    );
+
+    @Test
+    public void testSweepMatchesSingleRuns() throws Exception {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(2_000);
+        CapacitySweep sweep = new CapacitySweep(simulation, new KitchenProperties(), MENU);
+        sweep.setOverflowCapacities(Arrays.asList(5, 50));
+        sweep.setOrdersPerSecond(Arrays.asList(10d, 40d));
+        List<SweepResult> results = sweep.run(new ForkJoinPool(4));
+
+        assertEquals(4, results.size());
+        assertEquals(5, results.get(0).getOverflowCapacity());
+        assertEquals(40d, results.get(1).getOrdersPerSecond());
+        assertEquals(50, results.get(3).getOverflowCapacity());
+
+        KitchenProperties kitchen = new KitchenProperties();
+        kitchen.getOverflow().setCapacity(50);
+        SimulationProperties point = simulation.copy();
+        point.setOrdersPerSecond(40);
+        SimulationReport single = new KitchenSimulator(point, kitchen, MENU).run();
+        assertEquals(single.getDelivered(), results.get(3).getReport().getDelivered());
+        assertEquals(single.getDiscarded(), results.get(3).getReport().getDiscarded());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        CapacitySweep.writeCsv(results, new PrintStream(csv));
+        String[] lines = csv.toString().split(System.lineSeparator());
+        assertEquals(5, lines.length);
+        assertTrue(lines[1].startsWith("10,5,0,10.000,2000,"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        CapacitySweep.writeJson(results, json);
+        JsonNode tree = new ObjectMapper().readTree(json.toByteArray());
+        assertEquals(4, tree.size());
+        assertEquals(2000, tree.get(0).get("report").get("orders").asInt());
+    }
+}
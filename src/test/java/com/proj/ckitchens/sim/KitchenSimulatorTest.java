@@ -0,0 +1,77 @@
+package com.proj.ckitchens.sim;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenSimulatorTest {
+    private static final List<Order> MENU = Arrays.asList(
+            new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.45),
+            new Order(UUID.randomUUID(), Temperature.COLD, "Salad", 240, 0.6),
+            new Order(UUID.randomUUID(), Temperature.FROZEN, "Ice Cream", 20, 0.9)
+    );
+
+    @Test
+    public void testEveryOrderHasOneOutcome() {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(20_000);
+        SimulationReport report = new KitchenSimulator(simulation, new KitchenProperties(), MENU).run();
+
+        assertEquals(20_000, report.getOrders());
+        assertEquals(report.getOrders(), report.getDelivered() + report.getWasted() + report.getDiscarded());
+        assertTrue(report.getDiscarded() > 0);
+        assertTrue(report.getSimulatedNanos() > 900_000_000_000L);
+    }
+
+    @Test
+    public void testSameSeedSameRun() {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(5_000);
+        simulation.setCouriers(30);
+        simulation.setCookMaxSeconds(3);
+        KitchenProperties kitchen = new KitchenProperties();
+        kitchen.setIds(Arrays.asList("north", "south"));
+
+        SimulationReport first = new KitchenSimulator(simulation, kitchen, MENU).run();
+        SimulationReport second = new KitchenSimulator(simulation, kitchen, MENU).run();
+        assertEquals(first.getDelivered(), second.getDelivered());
+        assertEquals(first.getWasted(), second.getWasted());
+        assertEquals(first.getDiscarded(), second.getDiscarded());
+        assertEquals(first.getDeliveredValue(), second.getDeliveredValue(), 1e-9);
+        assertEquals(first.getSimulatedNanos(), second.getSimulatedNanos());
+    }
+
+    @Test
+    public void testLargerShelvesDiscardLess() {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(5_000);
+        SimulationReport small = new KitchenSimulator(simulation, new KitchenProperties(), MENU).run();
+        KitchenProperties large = new KitchenProperties();
+        large.getOverflow().setCapacity(100);
+        SimulationReport report = new KitchenSimulator(simulation, large, MENU).run();
+        assertTrue(report.getDiscarded() < small.getDiscarded());
+    }
+
+    @Test
+    public void testMultiOrderTripsOutrunABusyFleet() {
+        SimulationProperties simulation = new SimulationProperties();
+        simulation.setOrderCount(5_000);
+        simulation.setCouriers(40);
+        SimulationReport single = new KitchenSimulator(simulation, new KitchenProperties(), MENU).run();
+        simulation.setOrdersPerTrip(4);
+        SimulationReport batched = new KitchenSimulator(simulation, new KitchenProperties(), MENU).run();
+
+        assertEquals(5_000, single.getTrips());
+        assertTrue(batched.getTrips() < single.getTrips());
+        assertEquals(batched.getOrders(), batched.getDelivered() + batched.getWasted() + batched.getDiscarded());
+        assertTrue(batched.getSimulatedNanos() < single.getSimulatedNanos());
+        assertTrue(batched.getDeliveredValue() > single.getDeliveredValue());
+    }
+}
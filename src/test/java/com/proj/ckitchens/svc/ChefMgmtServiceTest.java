@@ -0,0 +1,43 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.ChefScheduling;
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.proj.ckitchens.svc.TestFixture.generateOneHotOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChefMgmtServiceTest {
+
+    @Test
+    public void testOrdersRejectedByAStoppedExecutorAreReported() throws InterruptedException {
+        LinkedBlockingQueue<Order> orders = new LinkedBlockingQueue<>();
+        OrderDispatchService dispatchService = new OrderDispatchService(orders, new LinkedBlockingQueue<>());
+        KitchenExecutor executor = new KitchenExecutor(ExecutionStrategy.FIXED, 1);
+        ChefMgmtService chefs = new ChefMgmtService(dispatchService,
+                KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF), executor, ChefScheduling.SHARED);
+        List<Order> failed = new ArrayList<>();
+        chefs.setFailureListener(failed::add);
+        executor.shutdown();
+        for (int i = 0; i < 3; i++) {
+            orders.add(generateOneHotOrder());
+        }
+        dispatchService.closeIncoming();
+
+        //the loop survives the rejections and ends once the queue is drained
+        Thread loop = new Thread(chefs::run);
+        loop.start();
+        loop.join(5_000);
+        assertFalse(loop.isAlive());
+        assertEquals(3, failed.size());
+        assertEquals(3, chefs.getFailed());
+        assertEquals(0, chefs.getCooking());
+    }
+}
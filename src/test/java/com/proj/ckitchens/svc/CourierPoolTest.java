@@ -0,0 +1,54 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.VirtualTimeScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourierPoolTest {
+
+    @Test
+    public void testOrdersQueueForAFreeCourier() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        CourierPool pool = new CourierPool(2, scheduler, scheduler, new Random(1), 1, 1);
+        List<Long> arrivals = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pool.send(() -> {
+                arrivals.add(scheduler.nanoTime());
+                pool.pickedUp();
+            });
+        }
+        assertEquals(2, pool.getBusy());
+        assertEquals(2, pool.getQueued());
+
+        scheduler.runAll();
+        long second = TimeUnit.SECONDS.toNanos(1);
+        //the last two wait for the first two couriers to be back
+        assertEquals(List.of(second, second, 3 * second, 3 * second), arrivals);
+        assertEquals(0, pool.getBusy());
+        assertEquals(0, pool.getQueued());
+        assertEquals(4, pool.getQueueingDelay().getCount());
+        assertEquals(second, pool.getQueueingDelay().getMean(), second / 100d);
+        assertEquals(1.0, pool.getUtilization(), 1e-9);
+    }
+
+    @Test
+    public void testUnlimitedPoolNeverQueues() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        CourierPool pool = new CourierPool(0, scheduler, scheduler, new Random(1), 2, 6);
+        for (int i = 0; i < 100; i++) {
+            pool.send(pool::pickedUp);
+        }
+        assertEquals(100, pool.getBusy());
+        assertEquals(0, pool.getQueued());
+        scheduler.runAll();
+        assertEquals(0, pool.getBusy());
+        assertEquals(0, pool.getQueueingDelay().getMax());
+        assertEquals(0, pool.getUtilization());
+    }
+}
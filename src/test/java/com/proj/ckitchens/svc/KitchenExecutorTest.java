@@ -0,0 +1,45 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.common.TaskScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenExecutorTest {
+
+    @Test
+    public void testEveryStrategyRunsTasksAndTimers() throws InterruptedException {
+        for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+            KitchenExecutor executor = new KitchenExecutor(strategy, 2);
+            assertTrue(executor.getStrategy().isSupported());
+            CountDownLatch done = new CountDownLatch(3);
+            executor.getWorkers().execute(done::countDown);
+            TaskScheduler first = executor.newScheduler(1, TimeUnit.MILLISECONDS, 16);
+            TaskScheduler second = executor.newScheduler(1, TimeUnit.MILLISECONDS, 16);
+            first.schedule(done::countDown, 5, TimeUnit.MILLISECONDS);
+            second.schedule(done::countDown, 5, TimeUnit.MILLISECONDS);
+            //the first timer wheel shutting down leaves the shared workers to the second
+            first.shutdown();
+            assertTrue(done.await(5, TimeUnit.SECONDS), strategy.name());
+            second.shutdown();
+            executor.shutdown();
+            assertTrue(executor.getWorkers().awaitTermination(5, TimeUnit.SECONDS), strategy.name());
+        }
+    }
+
+    @Test
+    public void testVirtualFallsBackWithoutVirtualThreads() {
+        KitchenExecutor executor = new KitchenExecutor(ExecutionStrategy.VIRTUAL, 1);
+        if (ExecutionStrategy.VIRTUAL.isSupported()) {
+            assertEquals(ExecutionStrategy.VIRTUAL, executor.getStrategy());
+        } else {
+            assertEquals(ExecutionStrategy.WORK_STEALING, executor.getStrategy());
+            assertThrows(IllegalStateException.class, () -> ExecutionStrategy.VIRTUAL.newExecutor(1, "test"));
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,153 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Clock;
+import com.proj.ckitchens.common.DispatchMode;
+import com.proj.ckitchens.common.ExecutionStrategy;
+import com.proj.ckitchens.common.OverloadPolicy;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenLifecycleTest {
+    private OrderMgmtService intake;
+    private DeliveryService deliveries;
+
+    /**
+     * a process whose couriers take tripSeconds each way
+     * @param tripSeconds
+     * @return
+     */
+    private KitchenLifecycle start(double tripSeconds) {
+        KitchenProperties properties = new KitchenProperties();
+        properties.getIntake().setCapacity(100);
+        KitchenLifecycle lifecycle = create(tripSeconds, properties);
+        lifecycle.start();
+        return lifecycle;
+    }
+
+    /**
+     * @param tripSeconds
+     * @param properties shelves and intake
+     * @return a process not started yet
+     */
+    private KitchenLifecycle create(double tripSeconds, KitchenProperties properties) {
+        LinkedBlockingQueue<Order> orders = new LinkedBlockingQueue<>(properties.getIntake().getCapacity());
+        OrderDispatchService dispatchService = new OrderDispatchService(orders, new LinkedBlockingQueue<>());
+        KitchenExecutor executor = new KitchenExecutor(ExecutionStrategy.FIXED, 2);
+        KitchenRegistry kitchens = KitchenRegistry.create(properties, JournalMode.OFF);
+        CourierPool couriers = new CourierPool(properties.getCouriers(), executor.newScheduler(1, TimeUnit.MILLISECONDS, 64), Clock.SYSTEM,
+                new Random(1), tripSeconds, tripSeconds);
+        intake = new OrderMgmtService(orders, properties.getIntake().getOverload(), 0, TimeUnit.MILLISECONDS);
+        deliveries = new DeliveryService(dispatchService, kitchens, couriers, 1, Clock.SYSTEM, properties.getDispatch());
+        //chefs burn whatever is called so
+        ChefMgmtService chefs = new ChefMgmtService(dispatchService, kitchens, executor) {
+            @Override
+            public void cookOrder(Order order) {
+                if (order.getName().equals("Burnt")) throw new IllegalStateException("burnt");
+            }
+        };
+        return new KitchenLifecycle(intake, dispatchService, chefs, deliveries, new CleanupService(kitchens, executor),
+                kitchens, executor);
+    }
+
+    private void addOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(Admission.ACCEPTED,
+                    intake.addOrder(new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5)));
+        }
+    }
+
+    @Test
+    public void testIdleShutdownIsImmediate() {
+        ShutdownReport report = start(0.01).shutdown(10, TimeUnit.SECONDS);
+        assertTrue(report.isDrained());
+        assertEquals(0, report.getAdmitted());
+        assertTrue(report.getDrainNanos() < TimeUnit.SECONDS.toNanos(1), report.toString());
+    }
+
+    @Test
+    public void testEveryAdmittedOrderCompletes() {
+        KitchenLifecycle lifecycle = start(0.05);
+        addOrders(30);
+        ShutdownReport report = lifecycle.shutdown(10, TimeUnit.SECONDS);
+
+        assertTrue(report.isDrained(), report.toString());
+        assertEquals(30, report.getAdmitted());
+        assertEquals(30, report.getCompleted());
+        assertEquals(0, report.getAbandoned());
+        assertEquals(Admission.REJECTED_SHUT_DOWN,
+                intake.addOrder(new Order(UUID.randomUUID(), Temperature.COLD, "Salad", 300, 0.5)));
+    }
+
+    @Test
+    public void testOrdersLeftAtTheDeadlineAreAbandoned() {
+        KitchenLifecycle lifecycle = start(5);
+        addOrders(30);
+        ShutdownReport report = lifecycle.shutdown(200, TimeUnit.MILLISECONDS);
+
+        assertFalse(report.isDrained());
+        assertEquals(30, report.getAdmitted());
+        assertTrue(report.getAbandoned() > 0);
+        assertEquals(report.getAdmitted(), report.getCompleted() + report.getAbandoned());
+        //the parts of the abandoned total add up to it
+        assertEquals(report.getAbandoned(),
+                report.getLeftInQueue() + report.getCooking() + report.getWaitingForCourier(), report.toString());
+        //couriers on their way are called back rather than waited for
+        assertTrue(report.getDrainNanos() < TimeUnit.SECONDS.toNanos(2), report.toString());
+    }
+
+    @Test
+    public void testShedAndThrownAwayOrdersAreNotAbandoned() {
+        KitchenProperties properties = new KitchenProperties();
+        properties.getIntake().setCapacity(5);
+        properties.getIntake().setOverload(OverloadPolicy.SHED_LOWEST_VALUE);
+        properties.getHot().setCapacity(3);
+        properties.getOverflow().setCapacity(0);
+        KitchenLifecycle lifecycle = create(0.05, properties);
+        //queued before the chefs start: the last five shed the first five
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Admission.ACCEPTED,
+                    intake.addOrder(new Order(UUID.randomUUID(), Temperature.HOT, "Soup", 100 + i, 0)));
+        }
+        lifecycle.start();
+        ShutdownReport report = lifecycle.shutdown(10, TimeUnit.SECONDS);
+
+        assertTrue(report.isDrained(), report.toString());
+        assertEquals(10, report.getAdmitted());
+        assertEquals(5, report.getShed());
+        assertTrue(report.getThrownAway() > 0, report.toString());
+        assertEquals(5, report.getCompleted() + report.getThrownAway(), report.toString());
+        assertEquals(0, report.getAbandoned());
+    }
+
+    @Test
+    public void testCouriersDoNotWaitForOrdersThatFailedToCook() {
+        for (DispatchMode mode : DispatchMode.values()) {
+            KitchenProperties properties = new KitchenProperties();
+            properties.setCouriers(2);
+            properties.setDispatch(mode);
+            KitchenLifecycle lifecycle = create(0.05, properties);
+            lifecycle.start();
+            for (int i = 0; i < 6; i++) {
+                intake.addOrder(new Order(UUID.randomUUID(), Temperature.HOT, i % 3 == 0 ? "Burnt" : "Pizza", 300, 0.5));
+            }
+            ShutdownReport report = lifecycle.shutdown(10, TimeUnit.SECONDS);
+
+            assertTrue(report.isDrained(), mode + " " + report);
+            assertTrue(report.getDrainNanos() < TimeUnit.SECONDS.toNanos(5), mode + " " + report);
+            assertEquals(2, report.getFailed(), mode.name());
+            assertEquals(4, report.getCompleted(), mode.name());
+            assertEquals(0, report.getAbandoned(), mode.name());
+            assertEquals(0, deliveries.getPending(), mode.name());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenRegistryTest {
+
+    @Test
+    public void testKitchensAreIndependent() {
+        KitchenProperties properties = new KitchenProperties();
+        properties.setIds(Arrays.asList("north", "south"));
+        properties.getHot().setCapacity(1);
+        KitchenRegistry registry = KitchenRegistry.create(properties, JournalMode.OFF);
+        assertEquals(2, registry.getKitchens().size());
+
+        Kitchen north = registry.get("north");
+        Kitchen south = registry.get("south");
+        assertNotSame(north.getShelfMgmtSystem().getShelfService().getHotShelf(),
+                south.getShelfMgmtSystem().getShelfService().getHotShelf());
+        assertNotSame(north.getShelfMgmtSystem().getShelfService().getMasterLock(),
+                south.getShelfMgmtSystem().getShelfService().getMasterLock());
+
+        Order order = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5, "south");
+        assertSame(south, registry.forOrder(order));
+        registry.forOrder(order).getShelfMgmtSystem().placeOrderOnShelf(order);
+        assertTrue(south.getShelfMgmtSystem().getShelfService().getHotShelf().getLocations().containsKey(order.getId()));
+        assertEquals(0, north.getShelfMgmtSystem().getShelfService().getHotShelf().getLocations().size());
+
+        assertNull(registry.forOrder(new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5, "east")));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(Kitchen.create("north", properties, JournalMode.OFF)));
+    }
+
+    @Test
+    public void testDefaultKitchen() {
+        KitchenRegistry registry = KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF);
+        Order order = new Order(UUID.randomUUID(), Temperature.COLD, "Ice", 300, 0.5);
+        assertEquals(Order.DEFAULT_KITCHEN, order.getKitchenId());
+        assertNotNull(registry.forOrder(order));
+    }
+}
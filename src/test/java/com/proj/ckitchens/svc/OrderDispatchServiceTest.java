@@ -4,9 +4,13 @@ import com.proj.ckitchens.model.Order;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static com.proj.ckitchens.svc.TestFixture.*;
 
@@ -67,4 +71,68 @@ public class OrderDispatchServiceTest {
         Order order = dispatchService.getOrderForDelivery();
         assertTrue(order.getId() == o.getId());
     }
+
+    @Test
+    public void testDrainIncomingOrders() {
+        for (int i = 0; i < 5; i++) {
+            ordersQueue.offer(generateOneHotOrder());
+        }
+        List<Order> batch = new ArrayList<>();
+        assertEquals(3, dispatchService.drainIncomingOrders(batch, 3, 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, ordersQueue.size());
+        assertEquals(batch, new ArrayList<>(deliveryQueue));
+
+        List<Order> forDelivery = new ArrayList<>();
+        assertEquals(3, dispatchService.drainOrdersForDelivery(forDelivery, 10, 10, TimeUnit.MILLISECONDS));
+        assertEquals(batch, forDelivery);
+        assertEquals(0, dispatchService.drainOrdersForDelivery(forDelivery, 10, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testShutdownWakesBlockedConsumers() throws InterruptedException {
+        CountDownLatch woken = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            new Thread(() -> {
+                if (dispatchService.getOrderForDelivery(1, TimeUnit.MINUTES) == null) woken.countDown();
+            }).start();
+        }
+        Thread.sleep(50);
+        long start = System.nanoTime();
+        dispatchService.signalShutDown();
+        assertTrue(woken.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertNull(dispatchService.getIncomingOrder(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testClosedQueuesHandOutWhatIsLeft() {
+        Order o = generateOneHotOrder();
+        ordersQueue.offer(o);
+        dispatchService.closeIncoming();
+        assertFalse(dispatchService.isIncomingDrained());
+        assertSame(o, dispatchService.getIncomingOrder());
+        //the marker doesn't make consumers wait for the timeout
+        long start = System.nanoTime();
+        assertNull(dispatchService.getIncomingOrder(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(dispatchService.isIncomingDrained());
+
+        assertFalse(dispatchService.isDeliveryDrained());
+        dispatchService.closeDelivery();
+        assertSame(o, dispatchService.getOrderForDelivery());
+        assertTrue(dispatchService.isDeliveryDrained());
+        assertTrue(dispatchService.removeIncomingOrders().isEmpty());
+    }
+
+    @Test
+    public void testShutdownAfterCloseQueuesOneMarker() {
+        Order o = generateOneHotOrder();
+        ordersQueue.offer(o);
+        dispatchService.closeIncoming();
+        dispatchService.signalShutDown();
+        assertEquals(2, ordersQueue.size());
+        assertFalse(dispatchService.isIncomingDrained());
+        assertEquals(List.of(o), dispatchService.removeIncomingOrders());
+        assertTrue(dispatchService.isIncomingDrained());
+    }
 }
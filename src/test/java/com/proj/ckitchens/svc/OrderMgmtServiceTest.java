@@ -0,0 +1,114 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.OverloadPolicy;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderMgmtServiceTest {
+
+    private static Order order(long shelfLife) {
+        return new Order(UUID.randomUUID(), Temperature.HOT, "order", shelfLife, 0.5);
+    }
+
+    @Test
+    public void testRejectAndBlockWhenFull() {
+        LinkedBlockingQueue<Order> queue = new LinkedBlockingQueue<>(2);
+        OrderMgmtService reject = new OrderMgmtService(queue, OverloadPolicy.REJECT, 0, TimeUnit.MILLISECONDS);
+        assertEquals(Admission.ACCEPTED, reject.addOrder(order(100)));
+        assertEquals(Admission.ACCEPTED, reject.addOrder(order(100)));
+        assertEquals(Admission.REJECTED_FULL, reject.addOrder(order(100)));
+        assertEquals(2, reject.getQueueDepth());
+        assertEquals(2, reject.getCapacity());
+        assertEquals(1 / 3d, reject.getRejectionRate(), 1e-9);
+
+        OrderMgmtService block = new OrderMgmtService(queue, OverloadPolicy.BLOCK, 20, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        assertEquals(Admission.REJECTED_FULL, block.addOrder(order(100)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        queue.poll();
+        assertEquals(Admission.ACCEPTED, block.addOrder(order(100)));
+
+        block.shutdown();
+        queue.clear();
+        assertEquals(Admission.REJECTED_SHUT_DOWN, block.addOrder(order(100)));
+    }
+
+    @Test
+    public void testShedLowestValue() {
+        LinkedBlockingQueue<Order> queue = new LinkedBlockingQueue<>(2);
+        OrderMgmtService intake = new OrderMgmtService(queue, OverloadPolicy.SHED_LOWEST_VALUE, 0, TimeUnit.MILLISECONDS);
+        Order low = order(10);
+        Order high = order(300);
+        intake.addOrder(low);
+        intake.addOrder(high);
+        Order middle = order(100);
+        assertEquals(Admission.ACCEPTED, intake.addOrder(middle));
+        assertFalse(queue.contains(low));
+        assertTrue(queue.contains(middle));
+        assertEquals(1, intake.getShed());
+
+        assertEquals(Admission.REJECTED_LOW_VALUE, intake.addOrder(order(50)));
+        assertEquals(1, intake.getCount(Admission.REJECTED_LOW_VALUE));
+    }
+
+    @Test
+    public void testShedOrdersGoToTheListener() {
+        LinkedBlockingQueue<Order> queue = new LinkedBlockingQueue<>(40);
+        OrderMgmtService intake = new OrderMgmtService(queue, OverloadPolicy.SHED_LOWEST_VALUE, 0, TimeUnit.MILLISECONDS);
+        List<Order> shed = new ArrayList<>();
+        intake.setShedListener(shed::add);
+        List<Order> low = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Order o = order(i % 2 == 0 ? 10 + i : 1000 + i);
+            if (i % 2 == 0) low.add(o);
+            assertEquals(Admission.ACCEPTED, intake.addOrder(o));
+        }
+        //each shed drops the lowest left, taken from the candidates of one scan
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Admission.ACCEPTED, intake.addOrder(order(500)));
+        }
+        assertEquals(low, shed);
+        assertEquals(20, intake.getShed());
+        //a low value order queued after the scan is found by the fresh scan before rejecting
+        assertEquals(Admission.REJECTED_LOW_VALUE, intake.addOrder(order(400)));
+        queue.poll();
+        Order lowest = order(5);
+        assertEquals(Admission.ACCEPTED, intake.addOrder(lowest));
+        assertEquals(Admission.ACCEPTED, intake.addOrder(order(400)));
+        assertEquals(lowest, shed.get(20));
+    }
+
+    @Test
+    public void testRedirectNeedsASecondIntake() {
+        KitchenProperties.IntakeProperties properties = new KitchenProperties().getIntake();
+        properties.setOverload(OverloadPolicy.REDIRECT);
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderMgmtService.create(new LinkedBlockingQueue<>(1), properties));
+    }
+
+    @Test
+    public void testRedirect() {
+        LinkedBlockingQueue<Order> full = new LinkedBlockingQueue<>(1);
+        LinkedBlockingQueue<Order> other = new LinkedBlockingQueue<>(1);
+        OrderMgmtService intake = new OrderMgmtService(full, OverloadPolicy.REDIRECT, 0, TimeUnit.MILLISECONDS);
+        OrderMgmtService sibling = new OrderMgmtService(other, OverloadPolicy.REDIRECT, 0, TimeUnit.MILLISECONDS);
+        intake.setRedirect(sibling);
+        sibling.setRedirect(intake);
+        intake.addOrder(order(100));
+        assertEquals(Admission.REDIRECTED, intake.addOrder(order(100)));
+        assertEquals(1, other.size());
+        //both full: no ping-pong
+        assertEquals(Admission.REJECTED_FULL, intake.addOrder(order(100)));
+        assertEquals(1, sibling.getCount(Admission.ACCEPTED));
+    }
+}
@@ -0,0 +1,78 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.ShelfGroup;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.proj.ckitchens.svc.TestFixture.generateOneOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PlacementBatcherTest {
+
+    @Test
+    public void testEveryOrderIsPlaced() throws InterruptedException {
+        KitchenProperties properties = new KitchenProperties();
+        properties.getHot().setCapacity(100);
+        properties.getCold().setCapacity(100);
+        properties.getFrozen().setCapacity(100);
+        Kitchen kitchen = Kitchen.create(Order.DEFAULT_KITCHEN, properties, JournalMode.OFF);
+        PlacementBatcher batcher = new PlacementBatcher(kitchen.getShelfMgmtSystem());
+
+        List<Thread> chefs = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            Temperature temp = Temperature.values()[c % Temperature.values().length];
+            Thread chef = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    batcher.add(generateOneOrder(temp));
+                }
+            });
+            chefs.add(chef);
+            chef.start();
+        }
+        for (Thread chef : chefs) {
+            chef.join();
+        }
+
+        int placed = 0;
+        for (Temperature temp : Temperature.values()) {
+            placed += kitchen.getShelfMgmtSystem().getShelfService().getShelfGroup(temp).getShard(0).getLocations().size();
+        }
+        assertEquals(100, placed);
+    }
+
+    @Test
+    public void testAddReturnsOnceTheOrderIsOnItsShard() throws InterruptedException {
+        KitchenProperties properties = new KitchenProperties();
+        //room for every order on its home shard
+        properties.getHot().setCapacity(800);
+        properties.getHot().setShards(4);
+        Kitchen kitchen = Kitchen.create(Order.DEFAULT_KITCHEN, properties, JournalMode.OFF);
+        ShelfGroup hot = kitchen.getShelfMgmtSystem().getShelfService().getShelfGroup(Temperature.HOT);
+        PlacementBatcher batcher = new PlacementBatcher(kitchen.getShelfMgmtSystem());
+
+        AtomicInteger misplaced = new AtomicInteger();
+        List<Thread> chefs = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            Thread chef = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    Order order = generateOneOrder(Temperature.HOT);
+                    batcher.add(order);
+                    if (!hot.getShard(hot.home(order)).getLocations().containsKey(order.getId())) misplaced.incrementAndGet();
+                }
+            });
+            chefs.add(chef);
+            chef.start();
+        }
+        for (Thread chef : chefs) {
+            chef.join();
+        }
+        assertEquals(0, misplaced.get());
+    }
+}
@@ -1,19 +1,25 @@
 package com.proj.ckitchens.svc;
 
+import com.proj.ckitchens.common.LockingMode;
+import com.proj.ckitchens.common.ShardRouting;
 import com.proj.ckitchens.common.Temperature;
 import com.proj.ckitchens.model.Order;
 import com.proj.ckitchens.model.Shelf;
+import com.proj.ckitchens.model.ShelfGroup;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.operations.DeliveryOutcome;
 import com.proj.ckitchens.svc.operations.ShelfService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.concurrent.locks.ReentrantLock;
 import static com.proj.ckitchens.svc.TestFixture.*;
 
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.masterLock;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -23,12 +29,10 @@ public class ShelfMgmtSystemTest {
     private static Shelf hotShelf;
     private static Shelf overflowShelf;
     private static ShelfService shelfService;
+    private static ShelfMgmtSystem shelfMgmtSystem;
 
     @BeforeAll
     public static void setup() {
-        masterLock = mock(ReentrantLock.class);
-        doNothing().when(masterLock).lock();
-        doNothing().when(masterLock).unlock();
         doNothing().when(lock).lock();
         doNothing().when(lock).unlock();
         doNothing().when(overflowLock).lock();
@@ -46,7 +50,6 @@ public class ShelfMgmtSystemTest {
                 overflowShelf
         ));
         shelfMgmtSystem = spy(new ShelfMgmtSystem(shelfService));
-        doNothing().when(shelfMgmtSystem).readContents(anyString(), anyString());
     }
 
     @Test
@@ -71,15 +74,15 @@ public class ShelfMgmtSystemTest {
         shelfMgmtSystem.placeOrderOnShelf(order3);
         verify(shelfService, times(1)).placeOnShelf(order3, hotShelf);
         verify(shelfService, times(2)).placeOnShelf(order3, overflowShelf);
-        verify(shelfService, times(1)).discardRandom(overflowShelf);
+        verify(shelfService, times(1)).evict(overflowShelf);
         assertTrue(shelfService.getHotShelf().getLocations().size() == 1);
         assertTrue(shelfService.getOverflowShelf().getLocations().size() == 1);
 
         //verify data
         assertEquals(order1.getId(), shelfService.getHotShelf().getCells()[0].getId());
         assertEquals(order3.getId(), shelfService.getOverflowShelf().getCells()[0].getId());
-        assertTrue(shelfService.getHotShelf().getLocations().get(order2.getId()) == null);
-        assertTrue(shelfService.getOverflowShelf().getLocations().get(order2.getId()) == null);
+        assertFalse(shelfService.getHotShelf().getLocations().containsKey(order2.getId()));
+        assertFalse(shelfService.getOverflowShelf().getLocations().containsKey(order2.getId()));
     }
 
     @Test
@@ -93,14 +96,32 @@ public class ShelfMgmtSystemTest {
         shelfMgmtSystem.deliverOrder(order1);
         verify(shelfService, times(1)).removeForDelivery(order1, overflowShelf);
         verify(shelfService, times(1)).removeForDelivery(order1, hotShelf);
-        assertTrue(shelfService.getHotShelf().getLocations().get(order1.getId()) == null);
+        assertFalse(shelfService.getHotShelf().getLocations().containsKey(order1.getId()));
         assertEquals(order2.getId(), shelfService.getOverflowShelf().getCells()[0].getId());
 
         //deliver from overflow, no interaction with hotShelf
         shelfMgmtSystem.deliverOrder(order2);
         verify(shelfService, times(1)).removeForDelivery(order2, overflowShelf);
         verify(shelfService, times(0)).removeForDelivery(order2, hotShelf);
-        assertTrue(shelfService.getOverflowShelf().getLocations().get(order2.getId()) == null);
+        assertFalse(shelfService.getOverflowShelf().getLocations().containsKey(order2.getId()));
+    }
+
+    @Test
+    public void testDeliverOrders() {
+        Order order1 = generateOneHotOrder();
+        Order order2 = generateOneHotOrder();
+        Order order3 = generateOneHotOrder();
+        shelfMgmtSystem.placeOrderOnShelf(order1);//on hotShelf
+        shelfMgmtSystem.placeOrderOnShelf(order2);//on overflow
+
+        //one pass on overflow, one on hotShelf for what overflow didn't have
+        assertEquals(Arrays.asList(DeliveryOutcome.DELIVERED, DeliveryOutcome.DELIVERED, DeliveryOutcome.NOT_FOUND),
+                shelfMgmtSystem.deliverOrders(Arrays.asList(order1, order2, order3)));
+        verify(shelfService, times(1)).removeAllForDelivery(anyList(), eq(overflowShelf), anyMap());
+        verify(shelfService, times(1)).removeAllForDelivery(anyList(), eq(hotShelf), anyMap());
+        verify(shelfService, never()).removeForDelivery(any(), any());
+        assertEquals(0, hotShelf.getLocations().size());
+        assertEquals(0, overflowShelf.getLocations().size());
     }
 
     @Test
@@ -119,15 +140,59 @@ public class ShelfMgmtSystemTest {
         verify(shelfService, times(2)).placeOnShelf(order3, overflowShelf);//first try on overflow + after move
     }
 
+    @Test
+    public void testPlaceOrdersOnShelf() {
+        Order order1 = generateOneHotOrder();
+        Order order2 = generateOneHotOrder();
+        Order order3 = generateOneHotOrder();
+        shelfMgmtSystem.placeOrdersOnShelf(Arrays.asList(order1, order2, order3));
+
+        //one batch on hot, the rest spills to overflow in one batch, the order overflow can't take evicts one
+        verify(shelfService, times(1)).placeAllOnShelf(anyList(), eq(hotShelf));
+        verify(shelfService, times(1)).placeAllOnShelf(anyList(), eq(overflowShelf));
+        verify(shelfMgmtSystem, times(1)).moveOrderFromOverflow(order3);
+        verify(shelfService, times(1)).evict(overflowShelf);
+        assertEquals(order1.getId(), hotShelf.getCells()[0].getId());
+        assertEquals(order3.getId(), overflowShelf.getCells()[0].getId());
+    }
+
+    @Test
+    public void testPlaceAndDeliverOnShards() {
+        ShelfService sharded = new ShelfService(
+                ShelfGroup.create(Temperature.HOT, 2, 2, ShardRouting.HASH),
+                ShelfGroup.create(Temperature.COLD, 1, 1, ShardRouting.HASH),
+                ShelfGroup.create(Temperature.FROZEN, 1, 1, ShardRouting.HASH),
+                overflowShelf, LockingMode.PER_SHELF, new ShelfEventJournal(JournalMode.OFF));
+        ShelfMgmtSystem system = new ShelfMgmtSystem(sharded);
+        ShelfGroup hot = sharded.getShelfGroup(Temperature.HOT);
+
+        //a full home shard spills to the other shard before overflow
+        Order order1 = generateOneHotOrder();
+        Order order2 = generateOneHotOrder();
+        system.placeOrderOnShelf(order1);
+        system.placeOrderOnShelf(order2);
+        assertEquals(1, hot.getShard(0).getLocations().size());
+        assertEquals(1, hot.getShard(1).getLocations().size());
+        assertEquals(0, overflowShelf.getLocations().size());
+        assertTrue(hot.getShard(hot.home(order1)).getLocations().containsKey(order1.getId()));
+
+        system.deliverOrder(order1);
+        system.deliverOrder(order2);
+        assertEquals(0, hot.getShard(0).getLocations().size());
+        assertEquals(0, hot.getShard(1).getLocations().size());
+    }
+
     @Test
     public void testCleanupOrdersEndOfLife() {
-        doNothing().when(shelfService).cleanup(any());
+        doReturn(Long.MAX_VALUE).when(shelfService).cleanup(any());
+        Shelf coldShelf = shelfService.getColdShelf();
+        Shelf frozenShelf = shelfService.getFrozenShelf();
         shelfMgmtSystem.cleanupOrdersEndOfLife();
 
         verify(shelfService, times(1)).cleanup(overflowShelf);
         verify(shelfService, times(1)).cleanup(hotShelf);
-        verify(shelfService, times(1)).cleanup(shelfService.getColdShelf());
-        verify(shelfService, times(1)).cleanup(shelfService.getFrozenShelf());
+        verify(shelfService, times(1)).cleanup(coldShelf);
+        verify(shelfService, times(1)).cleanup(frozenShelf);
     }
 }
 
@@ -213,7 +278,7 @@ public class ShelfMgmtSystemTest {
 //        shelfMgmtSystem.placeOrderOnShelf(order3);
 //        verify(shelfService, times(1)).placeOnShelf(order3, hotShelf);
 //        verify(shelfService, times(2)).placeOnShelf(order3, overflowShelf);
-//        verify(shelfService, times(1)).discardRandom(overflowShelf);
+//        verify(shelfService, times(1)).evict(overflowShelf);
 //        assertTrue(shelfService.getHotShelf().getLocations().size() == 1);
 //        assertTrue(shelfService.getOverflowShelf().getLocations().size() == 1);
 //
@@ -0,0 +1,87 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemperatureLanesTest {
+
+    private static Order order(Temperature temp) {
+        return new Order(UUID.randomUUID(), temp, "Food", 300, 0.5);
+    }
+
+    @Test
+    public void testIdleLanesStealFromABusyTemperature() {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        List<List<Order>> batches = new ArrayList<>();
+        TemperatureLanes lanes = new TemperatureLanes(3, tasks::add, batch -> batches.add(new ArrayList<>(batch)));
+        for (int i = 0; i < 40; i++) {
+            lanes.submit(order(Temperature.HOT));
+        }
+        //the hot lane and, as it is busy, the other two
+        assertEquals(3, tasks.size());
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+
+        assertEquals(40, batches.stream().mapToInt(List::size).sum());
+        assertEquals(8, lanes.getStolen());
+        for (List<Order> batch : batches) {
+            assertTrue(batch.stream().allMatch(o -> o.getTemp() == batch.get(0).getTemp()));
+        }
+    }
+
+    @Test
+    public void testLaneKeepsCookingAfterAFailedBatch() {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        List<Order> cooked = new ArrayList<>();
+        TemperatureLanes lanes = new TemperatureLanes(3, tasks::add, batch -> {
+            if (batch.get(0).getName().equals("Burnt")) throw new IllegalStateException("burnt");
+            cooked.addAll(batch);
+        });
+        lanes.submit(new Order(UUID.randomUUID(), Temperature.COLD, "Burnt", 300, 0.5));
+        tasks.poll().run();
+        assertTrue(tasks.isEmpty());
+
+        Order next = order(Temperature.COLD);
+        lanes.submit(next);
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        assertEquals(List.of(next), cooked);
+    }
+
+    @Test
+    public void testEveryOrderIsCookedOnce() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Set<UUID> cooked = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(3000);
+        TemperatureLanes lanes = new TemperatureLanes(4, executor, batch -> batch.forEach(o -> {
+            assertTrue(cooked.add(o.getId()));
+            done.countDown();
+        }));
+        for (int i = 0; i < 3000; i++) {
+            //mostly hot
+            lanes.submit(order(i % 5 < 3 ? Temperature.HOT : Temperature.values()[i % 3]));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3000, cooked.size());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,207 @@
+package com.proj.ckitchens.svc;
+
+import com.proj.ckitchens.common.DispatchMode;
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.common.VirtualTimeScheduler;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.Shelf;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import com.proj.ckitchens.svc.journal.ShelfEventJournal;
+import com.proj.ckitchens.svc.journal.ShelfEventType;
+import com.proj.ckitchens.svc.operations.DeliveryOutcome;
+import com.proj.ckitchens.svc.operations.ShelfService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * a kitchen on virtual time: shelves, cleanup and couriers share one {@link VirtualTimeScheduler}
+ */
+public class VirtualTimeKitchenTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testCleanupOnVirtualTime() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        KitchenRegistry registry = KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF, scheduler);
+        ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+        CleanupService cleanupService = new CleanupService(registry, scheduler, scheduler);
+        cleanupService.start();
+
+        scheduler.advance(5, TimeUnit.SECONDS);
+        Order order = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 10, 0);
+        system.placeOrderOnShelf(order);
+        Shelf hot = system.getShelfService().getHotShelf();
+        assertEquals(15 * SECOND, order.getExpiryDeadline());
+
+        scheduler.runUntil(15 * SECOND - 1);
+        assertTrue(hot.getLocations().containsKey(order.getId()));
+        scheduler.runUntil(15 * SECOND);
+        assertFalse(hot.getLocations().containsKey(order.getId()));
+    }
+
+    @Test
+    public void testDeterministicDeliveries() {
+        String journal = deliver(42);
+        assertTrue(journal.contains(ShelfEventType.DELIVERED.label()));
+        assertEquals(journal, deliver(42));
+    }
+
+    /**
+     * place an order every 250ms and send a courier for it
+     * @param seed
+     * @return rendered shelf events of the run
+     */
+    private String deliver(long seed) {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ShelfEventJournal journal = new ShelfEventJournal(JournalMode.FULL, 4096, 1, new PrintStream(out), scheduler);
+        KitchenRegistry registry = new KitchenRegistry();
+        registry.register(new Kitchen(Order.DEFAULT_KITCHEN,
+                new ShelfMgmtSystem(ShelfService.create(new KitchenProperties(), journal, scheduler))));
+        ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+        DeliveryService deliveryService = new DeliveryService(null, registry, scheduler, new Random(seed));
+        Random random = new Random(seed);
+        for (int i = 0; i < 40; i++) {
+            Order order = new Order(new UUID(seed, i), Temperature.values()[i % 3], "Food", 20 + random.nextInt(20), 0.5);
+            system.placeOrderOnShelf(order);
+            deliveryService.dispatch(order);
+            scheduler.advance(250, TimeUnit.MILLISECONDS);
+        }
+        scheduler.runAll();
+        journal.drain();
+        assertEquals(0, journal.getDropped());
+        return out.toString();
+    }
+
+    /**
+     * couriers are sent when an order arrives, and it is placed after 0 to 7 seconds of cooking
+     * @param mode
+     * @param ordersPerTrip
+     * @return
+     */
+    private DeliveryService dispatchWhileCooking(DispatchMode mode, int ordersPerTrip) {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        KitchenProperties properties = new KitchenProperties();
+        properties.getHot().setCapacity(200);
+        KitchenRegistry registry = KitchenRegistry.create(properties, JournalMode.OFF, scheduler);
+        ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+        CourierPool couriers = new CourierPool(0, scheduler, scheduler, new Random(7),
+                DeliveryService.MIN_TRIP_SECONDS, DeliveryService.MAX_TRIP_SECONDS);
+        DeliveryService deliveryService = new DeliveryService(null, registry, couriers, ordersPerTrip, scheduler, mode);
+        Random cooking = new Random(11);
+        for (int i = 0; i < 100; i++) {
+            Order order = new Order(new UUID(0, i), Temperature.HOT, "Soup", 1000, 0);
+            deliveryService.dispatch(order);
+            scheduler.schedule(() -> system.placeOrderOnShelf(order), cooking.nextInt(8), TimeUnit.SECONDS);
+            scheduler.advance(500, TimeUnit.MILLISECONDS);
+        }
+        scheduler.runAll();
+        return deliveryService;
+    }
+
+    @Test
+    public void testMatchedAndFifoDispatch() {
+        DeliveryService matched = dispatchWhileCooking(DispatchMode.MATCHED, 1);
+        DeliveryService fifo = dispatchWhileCooking(DispatchMode.FIFO, 1);
+        for (DeliveryService service : new DeliveryService[]{matched, fifo}) {
+            assertEquals(100, service.getCount(DeliveryOutcome.DELIVERED));
+            assertEquals(100, service.getFoodWait().getCount());
+            assertEquals(100, service.getCourierWait().getCount());
+        }
+        //fifo pairs a courier with the first order ready, so neither side waits while the other is idle
+        double matchedWait = matched.getFoodWait().getMean() + matched.getCourierWait().getMean();
+        double fifoWait = fifo.getFoodWait().getMean() + fifo.getCourierWait().getMean();
+        assertTrue(fifoWait < matchedWait, "fifo " + fifoWait + " matched " + matchedWait);
+    }
+
+    @Test
+    public void testMultiOrderTrips() {
+        for (DispatchMode mode : DispatchMode.values()) {
+            DeliveryService service = dispatchWhileCooking(mode, 3);
+            assertEquals(100, service.getCount(DeliveryOutcome.DELIVERED), mode.name());
+            assertEquals(100, service.getCourierWait().getCount(), mode.name());
+            //orders dispatched while a courier is on its way join it
+            long trips = service.getCouriers().getQueueingDelay().getCount();
+            assertTrue(trips < 100 && trips >= 34, mode.name() + " " + trips);
+            assertEquals(0, service.getCouriers().getBusy(), mode.name());
+        }
+    }
+
+    @Test
+    public void testFifoCourierOfAnEvictedOrderIsFreed() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        KitchenProperties properties = new KitchenProperties();
+        properties.getHot().setCapacity(1);
+        properties.getOverflow().setCapacity(1);
+        KitchenRegistry registry = KitchenRegistry.create(properties, JournalMode.OFF, scheduler);
+        ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+        CourierPool couriers = new CourierPool(2, scheduler, scheduler, new Random(3),
+                DeliveryService.MIN_TRIP_SECONDS, DeliveryService.MAX_TRIP_SECONDS);
+        DeliveryService deliveryService = new DeliveryService(null, registry, couriers, 1, scheduler, DispatchMode.FIFO);
+        //the third order evicts the second from overflow
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(new UUID(0, i), Temperature.HOT, "Soup", 1000, 0);
+            deliveryService.dispatch(order);
+            system.placeOrderOnShelf(order);
+        }
+        scheduler.runAll();
+        assertEquals(2, deliveryService.getCount(DeliveryOutcome.DELIVERED));
+        assertEquals(1, deliveryService.getCount(DeliveryOutcome.NOT_FOUND));
+        assertEquals(0, deliveryService.getPending());
+        assertEquals(0, couriers.getBusy());
+    }
+
+    @Test
+    public void testCourierOfAFailedOrderIsFreed() {
+        for (DispatchMode mode : DispatchMode.values()) {
+            VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+            KitchenRegistry registry = KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF, scheduler);
+            ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+            CourierPool couriers = new CourierPool(1, scheduler, scheduler, new Random(5),
+                    DeliveryService.MIN_TRIP_SECONDS, DeliveryService.MAX_TRIP_SECONDS);
+            DeliveryService deliveryService = new DeliveryService(null, registry, couriers, 1, scheduler, mode);
+            Order early = new Order(new UUID(1, 0), Temperature.HOT, "Soup", 1000, 0);
+            Order late = new Order(new UUID(1, 1), Temperature.HOT, "Soup", 1000, 0);
+            Order cooked = new Order(new UUID(1, 2), Temperature.HOT, "Soup", 1000, 0);
+            //fails before it is dispatched
+            deliveryService.failed(early);
+            deliveryService.dispatch(early);
+            deliveryService.dispatch(late);
+            deliveryService.dispatch(cooked);
+            scheduler.advance(10, TimeUnit.SECONDS);
+            //fails while a courier waits for it
+            deliveryService.failed(late);
+            system.placeOrderOnShelf(cooked);
+            scheduler.runAll();
+
+            assertEquals(1, deliveryService.getCount(DeliveryOutcome.DELIVERED), mode.name());
+            assertEquals(0, deliveryService.getPending(), mode.name());
+            assertEquals(0, couriers.getBusy(), mode.name());
+            assertEquals(0, couriers.getQueued(), mode.name());
+        }
+    }
+
+    @Test
+    public void testPickupOfAnOrderGoneFromTheShelves() {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        KitchenRegistry registry = KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF, scheduler);
+        ShelfMgmtSystem system = registry.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem();
+        DeliveryService deliveryService = new DeliveryService(null, registry, scheduler, scheduler, new Random(1),
+                DispatchMode.MATCHED);
+        Order order = new Order(UUID.randomUUID(), Temperature.COLD, "Salad", 100, 0);
+        system.placeOrderOnShelf(order);
+        deliveryService.dispatch(order);
+        assertEquals(DeliveryOutcome.DELIVERED, system.deliverOrder(order));
+        scheduler.runAll();
+        assertEquals(1, deliveryService.getCount(DeliveryOutcome.NOT_FOUND));
+        assertEquals(0, deliveryService.getCourierWait().getMax());
+    }
+}
@@ -0,0 +1,83 @@
+package com.proj.ckitchens.svc.journal;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.model.Shelf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.proj.ckitchens.svc.TestFixture.generateOneHotOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShelfEventJournalTest {
+    private ByteArrayOutputStream bytes;
+    private PrintStream out;
+    private Shelf shelf;
+
+    @BeforeEach
+    public void init() {
+        bytes = new ByteArrayOutputStream();
+        out = new PrintStream(bytes, true);
+        shelf = new Shelf(new ReentrantLock(), 1, Temperature.HOT.name());
+    }
+
+    @Test
+    public void testDeltaRendersEventsInOrder() {
+        ShelfEventJournal journal = new ShelfEventJournal(JournalMode.DELTA, 8, 1, out);
+        Order o = generateOneHotOrder();
+        assertTrue(journal.publish(ShelfEventType.PLACED, o, shelf, 0, 1.0));
+        assertTrue(journal.publish(ShelfEventType.DELIVERED, o, shelf, 0, 0.5));
+        assertEquals(2, journal.drain());
+
+        String text = bytes.toString();
+        assertTrue(text.indexOf("INITIAL placement: order " + o.getId()) < text.indexOf("REMOVAL - delivered: order " + o.getId()));
+        assertEquals(0, journal.drain());
+    }
+
+    @Test
+    public void testFullRingDropsWithoutBlocking() {
+        ShelfEventJournal journal = new ShelfEventJournal(JournalMode.DELTA, 4, 1, out);
+        for (int i = 0; i < 6; i++) {
+            journal.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0);
+        }
+        assertEquals(4, journal.getPublished());
+        assertEquals(2, journal.getDropped());
+        assertEquals(4, journal.drain());
+        assertTrue(journal.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0));
+    }
+
+    @Test
+    public void testSampledAndFullModes() {
+        ShelfEventJournal sampled = new ShelfEventJournal(JournalMode.SAMPLED, 16, 5, out);
+        for (int i = 0; i < 10; i++) {
+            sampled.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0);
+        }
+        assertEquals(10, sampled.drain());
+        assertEquals(2, sampled.getRendered());
+
+        ShelfEventJournal full = new ShelfEventJournal(JournalMode.FULL, 16, 1, out);
+        full.setSnapshot(sb -> sb.append("SNAPSHOT").append(System.lineSeparator()));
+        full.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0);
+        full.publish(ShelfEventType.CLEANED, generateOneHotOrder(), shelf, 0, 0);
+        full.drain();
+        assertEquals(bytes.toString().indexOf("SNAPSHOT"), bytes.toString().lastIndexOf("SNAPSHOT"));
+
+        ShelfEventJournal off = new ShelfEventJournal(JournalMode.OFF);
+        assertFalse(off.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0));
+    }
+
+    @Test
+    public void testWriterThreadFlushesOnShutdown() {
+        ShelfEventJournal journal = new ShelfEventJournal(JournalMode.DELTA, 1024, 1, out);
+        journal.start();
+        for (int i = 0; i < 500; i++) {
+            journal.publish(ShelfEventType.PLACED, generateOneHotOrder(), shelf, 0, 1.0);
+        }
+        journal.shutdown();
+        assertEquals(500, journal.getRendered());
+    }
+}
@@ -1,10 +1,11 @@
 package com.proj.ckitchens.svc.operations;
 
-import com.proj.ckitchens.common.DoublyLinkedNode;
+import com.proj.ckitchens.common.EvictionPolicy;
+import com.proj.ckitchens.common.SlotAllocator;
 import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.common.UuidSlotIndex;
 import com.proj.ckitchens.model.Order;
 import com.proj.ckitchens.model.Shelf;
-import com.proj.ckitchens.svc.ShelfMgmtSystem;
 import com.proj.ckitchens.utils.DataIntegrityViolation;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,8 +14,6 @@ import org.junit.jupiter.api.Test;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
 
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.masterLock;
-import static com.proj.ckitchens.svc.ShelfMgmtSystem.shelfMgmtSystem;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static com.proj.ckitchens.svc.TestFixture.*;
@@ -30,20 +29,14 @@ public class ShelfServiceTest {
 
     private Order[] cells;
     private int capacity;
-    private Map<UUID, DoublyLinkedNode> locations;
-    private Queue<Integer> availableCells;
-    private DoublyLinkedNode hotHead, hotTail, coldHead, coldTail, frozenHead, frozenTail;
+    private UuidSlotIndex locations;
+    private SlotAllocator availableCells;
 
     @BeforeAll
     public static void setup() {
-        masterLock = mock(ReentrantLock.class);
-        doNothing().when(masterLock).lock();
-        doNothing().when(masterLock).unlock();
         doNothing().when(lock).lock();
         doNothing().when(lock).unlock();
         doNothing().when(overflowLock).unlock();
-        shelfMgmtSystem = mock(ShelfMgmtSystem.class);
-        doNothing().when(shelfMgmtSystem).readContents(anyString(), anyString());
     }
 
     @BeforeEach
@@ -157,39 +150,112 @@ public class ShelfServiceTest {
         try {
             Thread.sleep(2000);
         } catch (InterruptedException e) {}
-        service.cleanup(hshelf);
+        long next = service.cleanup(hshelf);
         assertTrue(hshelf.getCells()[0] == null);
         assertEquals(1, hshelf.getLocations().size());
+        assertEquals(o3.getExpiryDeadline(), next);
         assertStateMaintained(hshelf);
     }
 
+    @Test
+    public void testExpiriesFollowPlacementAndRemoval() {
+        Order o1 = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 100, 0.5);
+        Order o2 = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 10, 0.5);
+        List<Long> notified = new ArrayList<>();
+        service.setExpiryListener(notified::add);
+
+        service.placeOnShelf(o1, hshelf);
+        service.placeOnShelf(o2, hshelf);
+        assertEquals(2, notified.size()); //each placement became the earliest expiry
+        assertEquals(1, hshelf.getExpiries().peek());
+        assertEquals(o2.getExpiryDeadline(), hshelf.getExpiries().peekDeadline());
+
+        service.removeForDelivery(o2, hshelf);
+        assertEquals(0, hshelf.getExpiries().peek());
+        assertEquals(o1.getExpiryDeadline(), service.cleanup(hshelf));
+
+        service.placeOnShelf(o2, overflowShelf);
+        assertEquals(o2.getExpiryDeadline(), overflowShelf.getExpiries().peekDeadline());
+        //overflow decays twice as fast: 10 / (1 + 0.5 * 2) seconds
+        assertTrue(o2.getExpiryDeadline() - System.nanoTime() <= 5_000_000_000L);
+    }
+
+    @Test
+    public void testPlaceAllOnShelf() {
+        List<Order> orders = Arrays.asList(generateOneHotOrder(), generateOneHotOrder(), generateOneHotOrder(),
+                generateOneHotOrder());
+        List<Order> left = service.placeAllOnShelf(orders, hshelf);
+        assertEquals(1, left.size());
+        assertSame(orders.get(3), left.get(0));
+        assertEquals(3, hshelf.getLocations().size());
+        assertEquals(3, hshelf.getExpiries().size());
+        assertStateMaintained(hshelf);
+
+        //full shelf returns the batch untouched
+        assertSame(left, service.placeAllOnShelf(left, hshelf));
+        assertTrue(service.placeAllOnShelf(Collections.emptyList(), hshelf).isEmpty());
+    }
+
     //the following tests are for methods called only on overflow shelf
 
     @Test
-    public void testDiscardRandom() {
+    public void testEvict() {
         //call on temperature shelf
-        assertThrows(IllegalArgumentException.class, () -> service.discardRandom(hshelf));
+        assertThrows(IllegalArgumentException.class, () -> service.evict(hshelf));
 
         //call on overflow shelf
         service.placeOnShelf(generateOneOrder(Temperature.HOT), overflowShelf);
-        Order o = service.discardRandom(overflowShelf);
+        Order o = service.evict(overflowShelf);
         assertTrue(o == null);
         assertStateMaintained(overflowShelf);
 
 
         service.placeOnShelf(generateOneOrder(Temperature.FROZEN), overflowShelf);
-        o = service.discardRandom(overflowShelf);
+        o = service.evict(overflowShelf);
         assertTrue(o == null);
         assertStateMaintained(overflowShelf);
 
         service.placeOnShelf(generateOneOrder(Temperature.HOT), overflowShelf);
-        o = service.discardRandom(overflowShelf);
+        o = service.evict(overflowShelf);
         assertTrue(o != null);
         assertTrue(overflowShelf.getLocations().size() == 2);
         assertStateMaintained(overflowShelf);
 
     }
 
+    @Test
+    public void testEvictionPolicies() throws InterruptedException {
+        //same shelf life, the order decaying fastest has the lowest value once time passes
+        Order slow = new Order(UUID.randomUUID(), Temperature.HOT, "slow", 300, 0.1);
+        Order fast = new Order(UUID.randomUUID(), Temperature.COLD, "fast", 300, 0.9);
+        Order short_ = new Order(UUID.randomUUID(), Temperature.FROZEN, "short", 10, 0.1);
+        service.placeOnShelf(slow, overflowShelf);
+        service.placeOnShelf(fast, overflowShelf);
+        service.placeOnShelf(short_, overflowShelf);
+        Thread.sleep(50);
+
+        assertEquals(EvictionPolicy.LOWEST_VALUE, service.getEvictionPolicy());
+        Order o = service.evict(overflowShelf);
+        assertEquals(short_.getId(), o.getId());
+        assertStateMaintained(overflowShelf);
+        assertEquals(1, service.getEvictionStats().getEvictions(EvictionPolicy.LOWEST_VALUE));
+        assertTrue(service.getEvictionStats().getValueLost(EvictionPolicy.LOWEST_VALUE) > 0);
+
+        service.placeOnShelf(short_, overflowShelf);
+        service.setEvictionPolicy(EvictionPolicy.EARLIEST_EXPIRY);
+        o = service.evict(overflowShelf);
+        assertEquals(short_.getId(), o.getId());
+        assertEquals(1, service.getEvictionStats().getEvictions(EvictionPolicy.EARLIEST_EXPIRY));
+
+        service.placeOnShelf(short_, overflowShelf);
+        service.setEvictionPolicy(EvictionPolicy.RANDOM);
+        assertNotNull(service.evict(overflowShelf));
+        assertEquals(2, overflowShelf.getLocations().size());
+        assertEquals(2, overflowShelf.getValues().size());
+        assertEquals(1, service.getEvictionStats().getEvictions(EvictionPolicy.RANDOM));
+        assertStateMaintained(overflowShelf);
+    }
+
     @Test
     public void testRemoveBasedOnTemperature() {
         //call on temperature shelf
@@ -212,12 +278,12 @@ public class ShelfServiceTest {
     @Test()
     public void testRemoveNonExistingTemperature() {
         //call on temperature shelf
-        assertThrows(IllegalArgumentException.class, () -> service.discardRandom(hshelf));
+        assertThrows(IllegalArgumentException.class, () -> service.evict(hshelf));
 
         //call on overflow shelf
         service.placeOnShelf(generateOneOrder(Temperature.COLD), overflowShelf);
         service.placeOnShelf(generateOneOrder(Temperature.FROZEN), overflowShelf);
-        assertThrows(NullPointerException.class, () -> service.removeBasedOnTemperature(Temperature.HOT, overflowShelf));
+        assertThrows(IllegalStateException.class, () -> service.removeBasedOnTemperature(Temperature.HOT, overflowShelf));
         assertStateMaintained(overflowShelf);
     }
 
@@ -269,78 +335,39 @@ public class ShelfServiceTest {
             availableCells = shelf.getAvailableCells();
             capacity = shelf.getCapacity();
 
-            hotHead = shelf.getHotHead();
-            hotTail = shelf.getHotTail();
-            coldHead = shelf.getColdHead();
-            coldTail = shelf.getColdTail();
-            frozenHead = shelf.getFrozenHead();
-            frozenTail = shelf.getFrozenTail();
-
-            Iterator<Map.Entry<UUID, DoublyLinkedNode>> it = locations.entrySet().iterator();
-            while (it.hasNext()) {
-                Map.Entry<UUID, DoublyLinkedNode> a = it.next();
-                UUID id = a.getKey();
-                int pos = a.getValue().value();
-                assertTrue(cells[pos].getId() == id);
-            }
-            Iterator<Integer> listIt = availableCells.iterator();
-            while (listIt.hasNext()) {
-                int temp = listIt.next();
-                assertTrue(cells[temp] == null);
+            int occupied = 0;
+            for (int pos = 0; pos < capacity; pos++) {
+                if (cells[pos] != null) {
+                    assertEquals(pos, locations.get(cells[pos].getId()));
+                    occupied++;
+                }
+                assertTrue(!availableCells.isFree(pos) || cells[pos] == null);
             }
+            assertEquals(occupied, locations.size());
             assertTrue(locations.size() + availableCells.size() == capacity);
-            assertTrue((hotHead == null && hotTail == null) || (hotHead != null && hotTail != null));
-            assertTrue((coldHead == null && coldTail == null) || (coldHead != null && coldTail != null));
-            assertTrue((frozenHead == null && frozenTail == null) || (frozenHead != null && frozenTail != null));
-            assertTrue((hotHead != hotTail) || (hotHead == null && hotTail == null) || (hotHead.previous() == null && hotTail.next() == null));
-            assertTrue((coldHead != coldTail) || (coldHead == null && coldTail == null) || (coldHead.previous() == null && coldTail.next() == null));
-            assertTrue((frozenHead != frozenTail) ||(frozenHead==null && frozenTail ==null)|| (frozenHead.previous() == null && frozenTail.next() == null));
-            DoublyLinkedNode node = hotHead;
-            int sum = 0;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.HOT);
-                sum++;
-                node = node.next();  //also verify the middle node: next previous not null //maybe do a previous loop
-            }
-            node = coldHead;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.COLD);
-                sum++;
-                node = node.next();
-            }
-            node = frozenHead;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.FROZEN);
-                sum++;
-                node = node.next();
-            }
-            assertEquals(locations.size(), sum);
-            sum = 0;
-            node = hotTail;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.HOT);
-                sum++;
-                node = node.previous();  //also verify the middle node: next previous not null //maybe do a previous loop
-            }
-            node = coldTail;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.COLD);
-                sum++;
-                node = node.previous();
-            }
-            node = frozenTail;
-            while (node != null) {
-                Order o = cells[node.value()];
-                assertTrue(o != null && o.getTemp() == Temperature.FROZEN);
-                sum++;
-                node = node.previous();
+
+            int[] previous = shelf.getPrevious();
+            int[] next = shelf.getNext();
+            int forward = 0;
+            int backward = 0;
+            for (Temperature temp : Temperature.values()) {
+                int head = shelf.getHead(temp);
+                int tail = shelf.getTail(temp);
+                assertTrue((head == Shelf.NONE) == (tail == Shelf.NONE));
+                assertTrue(head == Shelf.NONE || (previous[head] == Shelf.NONE && next[tail] == Shelf.NONE));
+                for (int pos = head; pos != Shelf.NONE; pos = next[pos]) {
+                    Order o = cells[pos];
+                    assertTrue(o != null && o.getTemp() == temp);
+                    forward++;
+                }
+                for (int pos = tail; pos != Shelf.NONE; pos = previous[pos]) {
+                    Order o = cells[pos];
+                    assertTrue(o != null && o.getTemp() == temp);
+                    backward++;
+                }
             }
-            assertEquals(locations.size(), sum);
+            assertEquals(locations.size(), forward);
+            assertEquals(locations.size(), backward);
         }catch (Exception e) {
             throw new DataIntegrityViolation("Error: data integrity violation");
         }
@@ -0,0 +1,75 @@
+package com.proj.ckitchens.svc.pipeline;
+
+import com.proj.ckitchens.common.Temperature;
+import com.proj.ckitchens.config.KitchenProperties;
+import com.proj.ckitchens.model.Order;
+import com.proj.ckitchens.svc.KitchenRegistry;
+import com.proj.ckitchens.svc.journal.JournalMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderPipelineTest {
+
+    @Test
+    public void testStagesSeeEveryEventInOrder() throws InterruptedException {
+        int count = 20_000;
+        long[] lastSeen = {-1, -1};
+        List<Long> outOfOrder = new ArrayList<>();
+        List<Order> cooked = new ArrayList<>();
+        OrderPipeline pipeline = new OrderPipeline(8, WaitStrategy.YIELD,
+                (event, sequence, endOfBatch) -> {
+                    if (sequence != lastSeen[0] + 1) outOfOrder.add(sequence);
+                    lastSeen[0] = sequence;
+                    cooked.add(event.getOrder());
+                },
+                (event, sequence, endOfBatch) -> {
+                    if (sequence != lastSeen[1] + 1 || event.getOrder() != cooked.get((int) sequence)) outOfOrder.add(sequence);
+                    lastSeen[1] = sequence;
+                });
+        pipeline.start();
+
+        Thread[] publishers = new Thread[2];
+        for (int t = 0; t < publishers.length; t++) {
+            publishers[t] = new Thread(() -> {
+                for (int i = 0; i < count / 2; i++) {
+                    assertTrue(pipeline.publish(new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5)));
+                }
+            });
+            publishers[t].start();
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        pipeline.shutdown();
+
+        assertEquals(count, pipeline.getProcessed(0));
+        assertEquals(count, pipeline.getProcessed(1));
+        assertTrue(outOfOrder.isEmpty());
+        assertFalse(pipeline.publish(new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5)));
+    }
+
+    @Test
+    public void testKitchenPipeline() throws InterruptedException {
+        KitchenRegistry kitchens = KitchenRegistry.create(new KitchenProperties(), JournalMode.OFF);
+        ConcurrentLinkedQueue<Order> dispatched = new ConcurrentLinkedQueue<>();
+        OrderPipeline pipeline = OrderPipeline.create(kitchens, o -> {}, dispatched::add, 16, WaitStrategy.PARK);
+        pipeline.start();
+
+        Order hot = new Order(UUID.randomUUID(), Temperature.HOT, "Pizza", 300, 0.5);
+        Order unknown = new Order(UUID.randomUUID(), Temperature.COLD, "Salad", 300, 0.5, "east");
+        pipeline.publish(hot);
+        pipeline.publish(unknown);
+        pipeline.shutdown();
+
+        assertEquals(1, dispatched.size());
+        assertSame(hot, dispatched.peek());
+        assertTrue(kitchens.get(Order.DEFAULT_KITCHEN).getShelfMgmtSystem().getShelfService().getHotShelf()
+                .getLocations().containsKey(hot.getId()));
+    }
+}